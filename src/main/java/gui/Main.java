@@ -9,6 +9,7 @@ import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import shrek.Shrek;
+import storage.Storage;
 
 /**
  * A GUI for your chatbot using FXML.
@@ -16,7 +17,7 @@ import shrek.Shrek;
  */
 public class Main extends Application {
 
-    private Shrek shrek = new Shrek("./data/shrek.txt");
+    private Shrek shrek = new Shrek("./data/shrek.txt", Storage.Mode.JOURNAL);
 
     @Override
     public void start(Stage stage) {
@@ -40,7 +40,7 @@ public class AddInstruction extends Instruction {
                     + "Task: " + taskToAdd.getDescription());
         }
         tasks.add(taskToAdd);
-        storage.save(tasks.getAllTasks());
+        storage.saveAdded(tasks, taskToAdd);
         return ui.printAddedTask(taskToAdd, tasks.size());
     }
 }
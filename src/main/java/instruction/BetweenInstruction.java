@@ -0,0 +1,51 @@
+package instruction;
+
+import java.time.LocalDate;
+
+import storage.Storage;
+import task.TaskList;
+import ui.Ui;
+
+/**
+ * Represents an instruction to display tasks occurring between two dates.
+ * This instruction returns the deadlines and events that fall within the range, inclusive.
+ */
+public class BetweenInstruction extends Instruction {
+    private LocalDate first;
+    private LocalDate last;
+
+    /**
+     * Constructs a BetweenInstruction for the specified range of dates.
+     *
+     * @param first the first day of the range
+     * @param last  the last day of the range
+     */
+    public BetweenInstruction(LocalDate first, LocalDate last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Executes the between instruction by returning tasks that occur within the range.
+     * Includes deadlines due in the range and events overlapping it, in chronological order.
+     *
+     * @param tasks   the task list to filter by date
+     * @param ui      the user interface for generating the filtered tasks message
+     * @param storage the storage system (unused in this instruction)
+     * @return formatted string of tasks in the range
+     */
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) {
+        return ui.printTasksBetween(tasks.getTasksBetween(first, last), first, last);
+    }
+
+    /**
+     * Indicates that this instruction only reads the task list.
+     *
+     * @return true always
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
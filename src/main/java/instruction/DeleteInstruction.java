@@ -3,15 +3,16 @@ package instruction;
 import storage.Storage;
 import task.Task;
 import task.TaskList;
+import task.TaskRef;
 import ui.Ui;
 import util.ShrekException;
 
 /**
  * Represents an instruction to delete a task from the task list.
- * This instruction handles the removal of tasks by their index position.
+ * This instruction handles the removal of tasks by their index position or ID.
  */
 public class DeleteInstruction extends Instruction {
-    private int index;
+    private TaskRef target;
 
     /**
      * Constructs a DeleteInstruction with the specified task index to be deleted.
@@ -19,7 +20,16 @@ public class DeleteInstruction extends Instruction {
      * @param index the zero-based index of the task to be deleted
      */
     public DeleteInstruction(int index) {
-        this.index = index;
+        this(TaskRef.ofIndex(index));
+    }
+
+    /**
+     * Constructs a DeleteInstruction for the task with the specified position or ID.
+     *
+     * @param target the task to be deleted
+     */
+    public DeleteInstruction(TaskRef target) {
+        this.target = target;
     }
 
     /**
@@ -30,12 +40,13 @@ public class DeleteInstruction extends Instruction {
      * @param ui      the user interface for generating messages
      * @param storage the storage system for persisting task data
      * @return confirmation message about the deleted task
-     * @throws ShrekException if the index is invalid or out of bounds
+     * @throws ShrekException if the index is invalid or out of bounds, or no task has the ID
      */
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws ShrekException {
+        int index = target.resolve(tasks);
         Task removedTask = tasks.remove(index);
-        storage.save(tasks.getAllTasks());
-        return ui.printDeleteTask(tasks.getAllTasks(), removedTask);
+        storage.saveDeleted(tasks, index, removedTask);
+        return ui.printDeleteTask(removedTask, tasks.size());
     }
 }
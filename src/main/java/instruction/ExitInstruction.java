@@ -1,8 +1,11 @@
 package instruction;
 
+import java.io.IOException;
+
 import storage.Storage;
 import task.TaskList;
 import ui.Ui;
+import util.ShrekException;
 
 /**
  * Represents an instruction to exit the application.
@@ -10,15 +13,22 @@ import ui.Ui;
  */
 public class ExitInstruction extends Instruction {
     /**
-     * Executes the exit instruction by returning the goodbye message.
+     * Executes the exit instruction by making sure every change is on disk
+     * and returning the goodbye message.
      *
      * @param tasks   the task list (unused in this instruction)
      * @param ui      the user interface for generating the goodbye message
-     * @param storage the storage system (unused in this instruction)
+     * @param storage the storage system whose pending writes are waited for
      * @return goodbye message string
+     * @throws ShrekException if some changes could not be saved, so that exiting would lose them
      */
     @Override
-    public String execute(TaskList tasks, Ui ui, Storage storage) {
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws ShrekException {
+        try {
+            storage.awaitDurable();
+        } catch (IOException e) {
+            throw new ShrekException("Shrek couldn't save everything to the swamp: " + e.getMessage());
+        }
         return ui.showGoodbye();
     }
 
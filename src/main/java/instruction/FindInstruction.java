@@ -3,35 +3,48 @@ package instruction;
 import storage.Storage;
 import task.TaskList;
 import ui.Ui;
+import util.ShrekException;
 
 /**
- * Represents an instruction to find tasks that contain a specific keyword.
- * This instruction searches through the list of tasks and returns those
- * that match the given keyword.
+ * Represents an instruction to find tasks that contain specific keywords.
+ * This instruction looks the keywords up in the task list's search index and returns
+ * the tasks that contain all of them. Keywords starting with "~" tolerate typos.
  */
 public class FindInstruction extends Instruction {
     private String word;
 
     /**
-     * Constructs a FindInstruction with the specified keyword.
+     * Constructs a FindInstruction with the specified keywords.
      *
-     * @param word the keyword to search for in tasks
+     * @param word the keywords to search for in tasks, separated by spaces
      */
     public FindInstruction(String word) {
         this.word = word;
     }
 
     /**
-     * Executes the find instruction by searching for tasks that contain the keyword
-     * and returning the matching tasks.
+     * Executes the find instruction by searching for tasks that contain every keyword
+     * and returning the matching tasks with their task numbers.
      *
      * @param tasks   the list of tasks to search through
      * @param ui      the UI component used to generate the results
      * @param storage the storage component (not used in this instruction)
      * @return formatted string of matching tasks
+     * @throws ShrekException if a matching task cannot be numbered
      */
     @Override
-    public String execute(TaskList tasks, Ui ui, Storage storage) {
-        return ui.printFind(tasks.getAllTasks(), word);
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws ShrekException {
+        TaskList.Matches matches = tasks.findNumbered(word);
+        return ui.printFind(matches.tasks(), matches.indices(), word);
+    }
+
+    /**
+     * Indicates that this instruction only reads the task list.
+     *
+     * @return true always
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
     }
 }
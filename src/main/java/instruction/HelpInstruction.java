@@ -18,4 +18,14 @@ public class HelpInstruction extends Instruction {
     public boolean isExit() {
         return false;
     }
+
+    /**
+     * Indicates that this instruction only reads the task list.
+     *
+     * @return true always
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
@@ -30,4 +30,15 @@ public abstract class Instruction {
     public boolean isExit() {
         return false;
     }
+
+    /**
+     * Indicates whether this instruction only reads the task list, so that it can run
+     * alongside other readers. Default implementation returns false; override in subclasses
+     * that change neither the task list nor storage.
+     *
+     * @return false by default, true for read-only instructions
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
 }
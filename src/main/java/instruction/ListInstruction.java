@@ -21,4 +21,14 @@ public class ListInstruction extends Instruction {
     public String execute(TaskList tasks, Ui ui, Storage storage) {
         return ui.printTaskList(tasks.getAllTasks());
     }
+
+    /**
+     * Indicates that this instruction only reads the task list.
+     *
+     * @return true always
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
 }
@@ -3,6 +3,7 @@ package instruction;
 import storage.Storage;
 import task.Task;
 import task.TaskList;
+import task.TaskRef;
 import ui.Ui;
 import util.ShrekException;
 
@@ -11,7 +12,7 @@ import util.ShrekException;
  * This instruction handles both marking tasks as completed and unmarking them.
  */
 public class MarkInstruction extends Instruction {
-    private int index;
+    private TaskRef target;
     private boolean markAsDone;
 
     /**
@@ -21,7 +22,17 @@ public class MarkInstruction extends Instruction {
      * @param markAsDone true to mark as done, false to unmark
      */
     public MarkInstruction(int index, boolean markAsDone) {
-        this.index = index;
+        this(TaskRef.ofIndex(index), markAsDone);
+    }
+
+    /**
+     * Constructs a MarkInstruction for the task with the specified position or ID.
+     *
+     * @param target     the task to mark/unmark
+     * @param markAsDone true to mark as done, false to unmark
+     */
+    public MarkInstruction(TaskRef target, boolean markAsDone) {
+        this.target = target;
         this.markAsDone = markAsDone;
     }
 
@@ -33,18 +44,14 @@ public class MarkInstruction extends Instruction {
      * @param ui      the user interface for generating messages
      * @param storage the storage system for persisting task data
      * @return confirmation message about the marked/unmarked task
-     * @throws ShrekException if the index is invalid or out of bounds
+     * @throws ShrekException if the index is invalid or out of bounds, or no task has the ID
      */
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) throws ShrekException {
-        Task task = tasks.get(index);
+        int index = target.resolve(tasks);
+        Task task = tasks.mark(index, markAsDone);
         assert task != null : "Task should not be null at index " + index;
-        if (markAsDone) {
-            task.markAsDone();
-        } else {
-            task.markAsNotDone();
-        }
-        storage.save(tasks.getAllTasks());
+        storage.saveMarked(tasks, index, task);
         return ui.printMarkUnmark(task, markAsDone);
     }
 }
@@ -0,0 +1,48 @@
+package instruction;
+
+import java.time.LocalDateTime;
+
+import storage.Storage;
+import task.TaskList;
+import ui.Ui;
+
+/**
+ * Represents an instruction to display the next few undone deadlines and events.
+ * This instruction returns the tasks due or still running from now on, soonest first.
+ */
+public class NextInstruction extends Instruction {
+    private int count;
+
+    /**
+     * Constructs a NextInstruction for the specified number of tasks.
+     *
+     * @param count the largest number of tasks to show
+     */
+    public NextInstruction(int count) {
+        this.count = count;
+    }
+
+    /**
+     * Executes the next instruction by returning the upcoming tasks.
+     * Done tasks, todos and tasks already over are left out.
+     *
+     * @param tasks   the task list to look through
+     * @param ui      the user interface for generating the message
+     * @param storage the storage system (unused in this instruction)
+     * @return formatted string of the upcoming tasks
+     */
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) {
+        return ui.printUpcoming(tasks.getUpcoming(LocalDateTime.now(), count));
+    }
+
+    /**
+     * Indicates that this instruction only reads the task list.
+     *
+     * @return true always
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -25,7 +25,7 @@ public class OnDateInstruction extends Instruction {
 
     /**
      * Executes the on-date instruction by returning tasks that occur on the specified date.
-     * Includes deadlines due on that date and events spanning that date.
+     * Includes deadlines due on that date and events spanning that date, in chronological order.
      *
      * @param tasks   the task list to filter by date
      * @param ui      the user interface for generating the filtered tasks message
@@ -34,6 +34,16 @@ public class OnDateInstruction extends Instruction {
      */
     @Override
     public String execute(TaskList tasks, Ui ui, Storage storage) {
-        return ui.printTasksOnDate(tasks.getAllTasks(), date);
+        return ui.printTasksOnDate(tasks.getTasksOnDate(date), date);
+    }
+
+    /**
+     * Indicates that this instruction only reads the task list.
+     *
+     * @return true always
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
     }
 }
@@ -0,0 +1,52 @@
+package instruction;
+
+import storage.Storage;
+import task.TaskList;
+import ui.Ui;
+import util.ShrekException;
+
+/**
+ * Represents an instruction to rank tasks by how well they match some words.
+ * Unlike find, tasks need only contain one of the words, and only the best few are returned.
+ */
+public class SearchInstruction extends Instruction {
+    /** The most matches shown for one search. */
+    public static final int LIMIT = 10;
+
+    private String query;
+
+    /**
+     * Constructs a SearchInstruction for the specified words.
+     *
+     * @param query the words to rank tasks by, separated by spaces
+     */
+    public SearchInstruction(String query) {
+        this.query = query;
+    }
+
+    /**
+     * Executes the search instruction by ranking the tasks against the words
+     * and returning the best matches with their task numbers.
+     *
+     * @param tasks   the list of tasks to search through
+     * @param ui      the UI component used to generate the results
+     * @param storage the storage component (not used in this instruction)
+     * @return formatted string of the best matching tasks
+     * @throws ShrekException if a matching task cannot be numbered
+     */
+    @Override
+    public String execute(TaskList tasks, Ui ui, Storage storage) throws ShrekException {
+        TaskList.Matches matches = tasks.searchNumbered(query, LIMIT);
+        return ui.printSearch(matches.tasks(), matches.indices(), query);
+    }
+
+    /**
+     * Indicates that this instruction only reads the task list.
+     *
+     * @return true always
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -0,0 +1,201 @@
+package parser;
+
+import util.Command;
+import util.ShrekException;
+
+/**
+ * One line of user input, scanned once for its command word, its arguments and the positions
+ * of the /by, /from and /to markers in them.
+ *
+ * <p>The arguments read as if the input had been trimmed and every run of whitespace replaced by a
+ * single space, but that string is only made when a command asks for it, and numbers are read
+ * straight from the input. Markers are found during the scan, so nothing searches the arguments again.
+ */
+final class CommandLine {
+    static final String BY = "/by";
+    static final String FROM = "/from";
+    static final String TO = "/to";
+
+    private final String input;
+    private final int wordStart;
+    private final int wordEnd;
+    private final int argumentStart;
+    private final int end;
+    private final boolean isCollapsed; // whether the arguments can be used without replacing whitespace
+    private int by = -1;
+    private int from = -1;
+    private int to = -1;
+    private String arguments;
+
+    /**
+     * Scans a line of user input.
+     *
+     * @param input the line
+     */
+    CommandLine(String input) {
+        this.input = input;
+        int last = input.length();
+        while (last > 0 && input.charAt(last - 1) <= ' ') {
+            last--;
+        }
+        int first = 0;
+        while (first < last && input.charAt(first) <= ' ') {
+            first++;
+        }
+        end = last;
+        wordStart = first;
+
+        int i = first;
+        while (i < end && !isSpace(input.charAt(i))) {
+            i++;
+        }
+        int word = i;
+        while (word > wordStart && input.charAt(word - 1) <= ' ') {
+            word--;
+        }
+        wordEnd = word;
+        while (i < end && isSpace(input.charAt(i))) {
+            i++;
+        }
+        argumentStart = i;
+
+        // walk the arguments, counting their length as collapsed and noting the first of each marker
+        boolean isPlain = true;
+        int length = 0;
+        for (; i < end; i++) {
+            char c = input.charAt(i);
+            if (isSpace(c)) {
+                if (c != ' ' || isSpace(input.charAt(i + 1))) {
+                    isPlain = false;
+                }
+                while (isSpace(input.charAt(i + 1))) {
+                    i++;
+                }
+            } else if (c == 'y' && by < 0 && endsWith(i, BY)) {
+                by = length - BY.length() + 1;
+            } else if (c == 'm' && from < 0 && endsWith(i, FROM)) {
+                from = length - FROM.length() + 1;
+            } else if (c == 'o' && to < 0 && endsWith(i, TO)) {
+                to = length - TO.length() + 1;
+            }
+            length++;
+        }
+        isCollapsed = isPlain;
+    }
+
+    /**
+     * Returns the command the line starts with, looked up in place. Letters match regardless of case,
+     * and the word may be a prefix of the command.
+     *
+     * @return the command
+     * @throws ShrekException if the first word is not a command
+     */
+    Command command() throws ShrekException {
+        Command command = Command.lookup(input, wordStart, wordEnd);
+        if (command == null) {
+            throw new ShrekException("I don't speak your language. I don't understand: " + word());
+        }
+        return command;
+    }
+
+    /**
+     * Returns the command word, lowercased.
+     *
+     * @return the command word
+     */
+    String word() {
+        return input.substring(wordStart, wordEnd).toLowerCase();
+    }
+
+    /**
+     * Returns the arguments after the command word, with each run of whitespace replaced by a single space.
+     *
+     * @return the arguments, or an empty string if there are none
+     */
+    String arguments() {
+        if (arguments == null) {
+            arguments = isCollapsed ? input.substring(argumentStart, end) : collapse();
+        }
+        return arguments;
+    }
+
+    private String collapse() {
+        StringBuilder collapsed = new StringBuilder(end - argumentStart);
+        for (int i = argumentStart; i < end; i++) {
+            char c = input.charAt(i);
+            if (!isSpace(c)) {
+                collapsed.append(c);
+            } else if (!isSpace(collapsed.charAt(collapsed.length() - 1))) {
+                collapsed.append(' ');
+            }
+        }
+        return collapsed.toString();
+    }
+
+    /**
+     * Returns the position of the first occurrence of a marker in the arguments.
+     *
+     * @param marker {@link #BY}, {@link #FROM} or {@link #TO}
+     * @return the position in {@link #arguments()}, or -1 if the marker does not occur
+     */
+    int indexOf(String marker) {
+        return switch (marker) {
+        case BY -> by;
+        case FROM -> from;
+        case TO -> to;
+        default -> throw new IllegalArgumentException("Not a marker: " + marker);
+        };
+    }
+
+    /**
+     * Returns the input the line was scanned from.
+     *
+     * @return the input
+     */
+    String input() {
+        return input;
+    }
+
+    /**
+     * Returns where the arguments start in the input, once leading blanks are skipped.
+     *
+     * @return the start of the arguments in {@link #input()}
+     */
+    int argumentStart() {
+        int start = argumentStart;
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Returns where the arguments end in the input, before trailing blanks.
+     *
+     * @return the end of the arguments in {@link #input()}, exclusive
+     */
+    int argumentEnd() {
+        return end;
+    }
+
+    /**
+     * Checks whether the line has anything after the command word other than blanks.
+     *
+     * @return true if there are arguments
+     */
+    boolean hasArguments() {
+        return argumentStart() < end;
+    }
+
+    private boolean endsWith(int i, String marker) {
+        int start = i - marker.length() + 1;
+        return start >= argumentStart && input.regionMatches(start, marker, 0, marker.length());
+    }
+
+    /**
+     * Checks for the characters {@code \s} matches in a regex.
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,76 @@
+package parser;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.joestelmach.natty.DateGroup;
+
+/**
+ * Resolves natural date phrases such as "next friday 5pm" with natty.
+ *
+ * <p>Natty is slow to load, so {@link #warmUp} loads it on a background thread, and the first phrase
+ * only waits for whatever is left of that. Phrases resolve relative to the current minute, so results
+ * are not kept: what "friday" or "in 2 hours" means changes with the time it is typed. Each thread
+ * parses with its own natty parser, without locking, once the shared grammar tables are loaded.
+ */
+final class NaturalDates {
+    private static final AtomicBoolean IS_STARTED = new AtomicBoolean();
+    private static final FutureTask<Boolean> NATTY = new FutureTask<>(() -> {
+        // the first parse loads natty's classes and builds its grammar tables
+        new com.joestelmach.natty.Parser().parse("tomorrow 5pm");
+        return true;
+    });
+    private static final ThreadLocal<com.joestelmach.natty.Parser> PARSERS =
+            ThreadLocal.withInitial(com.joestelmach.natty.Parser::new);
+
+    private NaturalDates() {
+    }
+
+    /**
+     * Starts loading natty on a background thread, unless it has been started already.
+     */
+    static void warmUp() {
+        if (IS_STARTED.compareAndSet(false, true)) {
+            Thread loader = new Thread(NATTY, "shrek-natty");
+            loader.setDaemon(true);
+            loader.start();
+        }
+    }
+
+    /**
+     * Resolves a phrase to a date and time, to the minute.
+     *
+     * @param phrase the phrase, e.g. "tomorrow 5pm"
+     * @return the date and time, or null if the whole phrase is not a date natty understands
+     */
+    static LocalDateTime resolve(String phrase) {
+        if (IS_STARTED.compareAndSet(false, true)) {
+            NATTY.run();
+        }
+        try {
+            NATTY.get();
+        } catch (ExecutionException e) {
+            return null; // natty failed to load, so only strict dates work
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        Date now = Date.from(LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).atZone(zone).toInstant());
+        List<DateGroup> groups = PARSERS.get().parse(phrase, now);
+        // only accept a phrase that is one date from start to end, not a date somewhere inside it
+        if (groups.size() != 1 || !groups.get(0).getText().trim().equalsIgnoreCase(phrase)
+                || groups.get(0).getDates().isEmpty()) {
+            return null;
+        }
+        Date date = groups.get(0).getDates().get(0);
+        return LocalDateTime.ofInstant(date.toInstant(), zone).truncatedTo(ChronoUnit.MINUTES);
+    }
+}
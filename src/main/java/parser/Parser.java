@@ -1,9 +1,11 @@
 package parser;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 
 import instruction.AddInstruction;
+import instruction.BetweenInstruction;
 import instruction.DeleteInstruction;
 import instruction.ExitInstruction;
 import instruction.FindInstruction;
@@ -11,11 +13,15 @@ import instruction.HelpInstruction;
 import instruction.Instruction;
 import instruction.ListInstruction;
 import instruction.MarkInstruction;
+import instruction.NextInstruction;
 import instruction.OnDateInstruction;
+import instruction.SearchInstruction;
 import instruction.SortInstruction;
+import task.DateTimeCodec;
 import task.Deadline;
 import task.Event;
 import task.Task;
+import task.TaskRef;
 import task.Todo;
 import util.Command;
 import util.ShrekException;
@@ -27,35 +33,39 @@ import util.ShrekException;
  */
 
 public class Parser {
+    private static final String FIELD_SEPARATOR = " | ";
+    private static final int MAX_FIELDS = 5;
 
     /**
      * Parses user input string and converts it into an executable instruction.
+     * The input is scanned once by a {@link CommandLine}; whitespace runs in the arguments
+     * count as single spaces.
      *
      * @param userInput the raw user input string to parse
      * @return an Instruction object corresponding to the parsed command
      * @throws ShrekException if the command is invalid or contains errors
      */
     public static Instruction parse(String userInput) throws ShrekException {
-        String cleanedInput = userInput.trim().replaceAll("\\s+", " ");
-        String[] parts = cleanedInput.split(" ", 2);
-        String commandWord = parts[0].trim().toLowerCase();
-        String arguments = parts.length > 1 ? parts[1] : "";
-        Command commandEnum = Command.fromString(commandWord);
+        CommandLine line = new CommandLine(userInput);
+        Command commandEnum = line.command();
         return switch (commandEnum) {
         case BYE -> new ExitInstruction();
         case LIST -> new ListInstruction();
-        case TODO -> parseTodo(arguments);
-        case DEADLINE -> parseDeadline(arguments);
-        case EVENT -> parseEvent(arguments);
-        case MARK -> parseMark(arguments, true);
-        case UNMARK -> parseMark(arguments, false);
-        case DELETE -> parseDelete(arguments);
-        case ONDATE -> parseOnDate(arguments);
-        case FIND -> parseFind(arguments.trim().split("\\s+"));
-        case SORT -> parseSort(arguments);
+        case TODO -> parseTodo(line.arguments());
+        case DEADLINE -> parseDeadline(line);
+        case EVENT -> parseEvent(line);
+        case MARK -> parseMark(line, true);
+        case UNMARK -> parseMark(line, false);
+        case DELETE -> parseDelete(line);
+        case ONDATE -> parseOnDate(line.arguments());
+        case BETWEEN -> parseBetween(line.arguments());
+        case NEXT -> parseNext(line);
+        case FIND -> parseFind(line.arguments());
+        case SEARCH -> parseSearch(line.arguments());
+        case SORT -> parseSort(line.arguments());
         case HELP -> new HelpInstruction();
         default -> throw new ShrekException(
-                "Shrek doesn't speak your language. What's: " + commandWord + "?");
+                "Shrek doesn't speak your language. What's: " + line.word() + "?");
         };
     }
 
@@ -77,130 +87,141 @@ public class Parser {
     /**
      * Parses arguments for a deadline command and creates the corresponding instruction.
      *
-     * @param arguments the arguments string following the deadline command
+     * @param line the scanned command line
      * @return an AddInstruction containing a new Deadline task
      * @throws ShrekException if the format is invalid or arguments are missing
      */
-    private static Instruction parseDeadline(String arguments) throws ShrekException {
-        assert arguments != null : "Arguments should not be null";
-        if (!arguments.contains("/by")) {
+    private static Instruction parseDeadline(CommandLine line) throws ShrekException {
+        String arguments = line.arguments();
+        int byAt = line.indexOf(CommandLine.BY);
+        if (byAt < 0) {
             throw new ShrekException("Deadlines must have a description and a /by date time.");
         }
 
-        String[] deadlineParts = arguments.split("/by", 2);
-        if (deadlineParts.length < 2) {
-            throw new ShrekException("Deadline format should be: description /by yyyy-MM-dd hh:mm");
-        }
-
-        String description = deadlineParts[0].trim();
-        String by = deadlineParts[1].trim();
+        String description = arguments.substring(0, byAt).trim();
+        String by = arguments.substring(byAt + CommandLine.BY.length()).trim();
 
         if (description.isEmpty() || by.isEmpty()) {
             throw new ShrekException("Where's my onions? Deadline description or date/time cannot be empty.");
         }
 
-        return new AddInstruction(new Deadline(description, by));
+        return new AddInstruction(new Deadline(description, parseDateTime(by,
+                "Shrek needs the date in *year-month-day HH:mm* format, e.g. 2025-01-01 14:30")));
     }
 
     /**
      * Parses arguments for an event command and creates the corresponding instruction.
      * Handles both /from before /to and /to before /from argument orders.
      *
-     * @param arguments the arguments string following the event command
+     * @param line the scanned command line
      * @return an AddInstruction containing a new Event task
      * @throws ShrekException if the format is invalid or arguments are missing
      */
-    private static Instruction parseEvent(String arguments) throws ShrekException {
+    private static Instruction parseEvent(CommandLine line) throws ShrekException {
         // Check if both /from and /to are present
-        if (!arguments.contains("/from") || !arguments.contains("/to")) {
+        int fromAt = line.indexOf(CommandLine.FROM);
+        int toAt = line.indexOf(CommandLine.TO);
+        if (fromAt < 0 || toAt < 0) {
             throw new ShrekException("Events must have both /from and /to date and times");
         }
 
         // Handle both orders: /from first or /to first
-        String description;
+        String arguments = line.arguments();
+        String description = arguments.substring(0, Math.min(fromAt, toAt)).trim();
         String from;
         String to;
-
-        if (arguments.indexOf("/from") < arguments.indexOf("/to")) {
-            // Normal order: /from comes before /to
-            String[] eventParts = arguments.split("/from", 2);
-            if (eventParts.length < 2) {
-                throw new ShrekException("Invalid event format! Shrek needs: event description /from yyyy-MM-dd HH:mm "
-                        + "/to yyyy-MM-dd HH:mm\n" + "Example: event team meeting /from 2025-12-05 14:00 "
-                        + "/to 2025-12-05 16:00");
-            }
-
-            description = eventParts[0].trim();
-            String[] timeParts = eventParts[1].split("/to", 2);
-
-            if (timeParts.length < 2) {
-                throw new ShrekException("Missing time parameters!\n" + "Shrek needs event with /from 2025-12-05 "
-                        + "14:00 /to 2025-12-31 16:00");
-            }
-
-            from = timeParts[0].trim();
-            to = timeParts[1].trim();
+        if (fromAt < toAt) {
+            from = arguments.substring(fromAt + CommandLine.FROM.length(), toAt).trim();
+            to = arguments.substring(toAt + CommandLine.TO.length()).trim();
         } else {
-            // Reverse order: /to comes before /from
-            String[] eventParts = arguments.split("/to", 2);
-            if (eventParts.length < 2) {
-                throw new ShrekException("Event format should be: description /from time /to time");
-            }
-
-            description = eventParts[0].trim();
-            String[] timeParts = eventParts[1].split("/from", 2);
-
-            if (timeParts.length < 2) {
-                throw new ShrekException("Event format should be: description /from time /to time");
-            }
-
-            from = timeParts[1].trim();
-            to = timeParts[0].trim();
+            to = arguments.substring(toAt + CommandLine.TO.length(), fromAt).trim();
+            from = arguments.substring(fromAt + CommandLine.FROM.length()).trim();
         }
 
         if (description.isEmpty() || from.isEmpty() || to.isEmpty()) {
             throw new ShrekException("Event description, start time or end time cannot be empty.");
         }
 
-        return new AddInstruction(new Event(description, from, to));
+        String invalid = "Shrek needs a valid date/time in *yyyy-MM-dd HH:mm* format, e.g. 2025-01-01 05:00";
+        LocalDateTime start = parseDateTime(from, invalid);
+        return new AddInstruction(new Event(description, start, parseDateTime(to, invalid)));
+    }
+
+    /**
+     * Parses a date and time in the yyyy-MM-dd HH:mm format, or failing that, as a natural phrase
+     * such as "next friday 5pm".
+     *
+     * @param text    the date and time
+     * @param invalid the error message if it is neither
+     * @return the date and time
+     * @throws ShrekException if the text is not a date and time
+     */
+    private static LocalDateTime parseDateTime(String text, String invalid) throws ShrekException {
+        try {
+            return DateTimeCodec.parse(text);
+        } catch (DateTimeParseException e) {
+            LocalDateTime resolved = NaturalDates.resolve(text);
+            if (resolved == null) {
+                throw new ShrekException(invalid);
+            }
+            return resolved;
+        }
+    }
+
+    /**
+     * Starts loading the natural date parser in the background, so that the first phrase
+     * such as "next friday 5pm" resolves without a pause.
+     */
+    public static void warmUp() {
+        NaturalDates.warmUp();
     }
 
     /**
      * Parses arguments for mark/unmark commands and creates the corresponding instruction.
      *
-     * @param arguments  the arguments string containing the task index
+     * @param line       the scanned command line, whose argument is the task number or #ID
      * @param markAsDone true for mark command, false for unmark command
-     * @return a MarkInstruction with the specified index and mark status
-     * @throws ShrekException if the index is missing or invalid
+     * @return a MarkInstruction with the specified task and mark status
+     * @throws ShrekException if the task number is missing or invalid
      */
-    private static Instruction parseMark(String arguments, boolean markAsDone) throws ShrekException {
-        if (arguments.trim().isEmpty()) {
+    private static Instruction parseMark(CommandLine line, boolean markAsDone) throws ShrekException {
+        if (!line.hasArguments()) {
             throw new ShrekException("Shrek needs a task number to " + (markAsDone ? "mark" : "unmark") + "!");
         }
-
-        try {
-            int index = Integer.parseInt(arguments.trim()) - 1;
-            return new MarkInstruction(index, markAsDone);
-        } catch (NumberFormatException e) {
-            throw new ShrekException("Shrek needs a valid task number!");
-        }
+        return new MarkInstruction(parseTaskRef(line), markAsDone);
     }
 
     /**
      * Parses arguments for a delete command and creates the corresponding instruction.
      *
-     * @param arguments the arguments string containing the task index
-     * @return a DeleteInstruction with the specified index
-     * @throws ShrekException if the index is missing or invalid
+     * @param line the scanned command line, whose argument is the task number or #ID
+     * @return a DeleteInstruction with the specified task
+     * @throws ShrekException if the task number is missing or invalid
      */
-    private static Instruction parseDelete(String arguments) throws ShrekException {
-        if (arguments.trim().isEmpty()) {
+    private static Instruction parseDelete(CommandLine line) throws ShrekException {
+        if (!line.hasArguments()) {
             throw new ShrekException("Shrek needs a task number to delete!");
         }
+        return new DeleteInstruction(parseTaskRef(line));
+    }
 
+    /**
+     * Parses a task number as shown by list, or a stable task ID written as #ID,
+     * reading the digits straight from the input.
+     *
+     * @param line the scanned command line, whose argument is the task number or #ID
+     * @return the reference to the task
+     * @throws ShrekException if the argument is not a number
+     */
+    private static TaskRef parseTaskRef(CommandLine line) throws ShrekException {
+        String input = line.input();
+        int start = line.argumentStart();
+        int end = line.argumentEnd();
         try {
-            int index = Integer.parseInt(arguments.trim()) - 1;
-            return new DeleteInstruction(index);
+            if (start < end && input.charAt(start) == '#') {
+                return TaskRef.ofId(Long.parseLong(input, start + 1, end, 10));
+            }
+            return TaskRef.ofIndex(Integer.parseInt(input, start, end, 10) - 1);
         } catch (NumberFormatException e) {
             throw new ShrekException("Shrek needs a valid task number!");
         }
@@ -228,16 +249,65 @@ public class Parser {
         }
     }
 
+    /**
+     * Parses arguments for a between command and creates the corresponding instruction.
+     *
+     * @param arguments the arguments string containing the first and last date
+     * @return a BetweenInstruction for the specified dates
+     * @throws ShrekException if a date is missing or invalid, or the dates are out of order
+     */
+    private static Instruction parseBetween(String arguments) throws ShrekException {
+        String[] dates = arguments.trim().split(" ");
+        if (dates.length != 2) {
+            throw new ShrekException("Shrek needs two dates! Format: between yyyy-MM-dd yyyy-MM-dd\n"
+                    + "Example: between 2025-12-01 2025-12-31");
+        }
+
+        LocalDate first;
+        LocalDate last;
+        try {
+            first = LocalDate.parse(dates[0]);
+            last = LocalDate.parse(dates[1]);
+        } catch (DateTimeParseException e) {
+            throw new ShrekException("Shrek needs valid dates in *yyyy-MM-dd* format!\n"
+                    + "Example: between 2025-12-01 2025-12-31");
+        }
+        if (last.isBefore(first)) {
+            throw new ShrekException("Onions don't grow backwards! " + last + " comes before " + first + ".");
+        }
+        return new BetweenInstruction(first, last);
+    }
+
+    /**
+     * Parses arguments for a next command and creates the corresponding instruction.
+     *
+     * @param line the scanned command line, whose argument is the number of upcoming tasks to show
+     * @return a NextInstruction for that many tasks
+     * @throws ShrekException if the number is missing, invalid or not positive
+     */
+    private static Instruction parseNext(CommandLine line) throws ShrekException {
+        try {
+            int count = Integer.parseInt(line.input(), line.argumentStart(), line.argumentEnd(), 10);
+            if (count <= 0) {
+                throw new ShrekException("Shrek can only look ahead at 1 or more onions!");
+            }
+            return new NextInstruction(count);
+        } catch (NumberFormatException e) {
+            throw new ShrekException("Shrek needs a number of onions to look ahead at!\n"
+                    + "Example: next 5");
+        }
+    }
+
     /**
      * Parses arguments for a find command and creates the corresponding instruction.
-     * Supports one or more search keywords using varargs.
+     * Supports one or more search keywords separated by single spaces.
      *
-     * @param keywords one or more keywords to search for
-     * @return a FindInstruction containing the joined search keywords
+     * @param arguments one or more keywords to search for
+     * @return a FindInstruction containing the search keywords
      * @throws ShrekException if no keywords are provided or empty
      */
-    private static Instruction parseFind(String... keywords) throws ShrekException {
-        String query = String.join(" ", keywords).trim();
+    private static Instruction parseFind(String arguments) throws ShrekException {
+        String query = arguments.trim();
 
         if (query.isEmpty()) {
             throw new ShrekException("Shrek needs a word to find tasks!");
@@ -246,6 +316,23 @@ public class Parser {
         return new FindInstruction(query);
     }
 
+    /**
+     * Parses arguments for a search command and creates the corresponding instruction.
+     *
+     * @param arguments one or more words to rank tasks by
+     * @return a SearchInstruction for the words
+     * @throws ShrekException if no words are provided
+     */
+    private static Instruction parseSearch(String arguments) throws ShrekException {
+        String query = arguments.trim();
+
+        if (query.isEmpty()) {
+            throw new ShrekException("Shrek needs a word to search for!");
+        }
+
+        return new SearchInstruction(query);
+    }
+
     /**
      * Parses arguments for a sort command and creates the corresponding instruction.
      *
@@ -272,6 +359,8 @@ public class Parser {
 
     /**
      * Parses a line from the storage file and converts it into a Task object.
+     * The line may start with the task's ID, as in "#12 | T | 0 | read book";
+     * otherwise the task is left without one.
      *
      * @param line the line from the storage file to parse
      * @return a Task object reconstructed from the file data
@@ -279,34 +368,47 @@ public class Parser {
      */
     // Keep the file parsing method for Storage
     public static Task parseTaskFromFile(String line) throws ShrekException {
-        String[] parts = line.split(" \\| ");
-        if (parts.length < 3) {
+        long id = 0;
+        String fields = line;
+        if (line.startsWith("#")) {
+            int end = line.indexOf(FIELD_SEPARATOR);
+            try {
+                id = Long.parseLong(line.substring(1, end < 0 ? line.length() : end));
+            } catch (NumberFormatException e) {
+                throw new ShrekException("Rotten onion! Invalid task ID in file: " + line);
+            }
+            fields = end < 0 ? "" : line.substring(end + FIELD_SEPARATOR.length());
+        }
+
+        int[] starts = new int[MAX_FIELDS + 1];
+        int count = splitFields(fields, starts);
+        if (count < 3) {
             throw new ShrekException("Rotten onion! Invalid task format in file: " + line);
         }
 
-        String type = parts[0];
-        boolean isDone = parts[1].equals("1");
-        String desc = parts[2];
+        String type = field(fields, starts, 0);
+        boolean isDone = starts[2] - starts[1] == FIELD_SEPARATOR.length() + 1 && fields.charAt(starts[1]) == '1';
+        String desc = field(fields, starts, 2);
 
         Task task;
         switch (type) {
         case "T":
-            if (parts.length != 3) {
+            if (count != 3) {
                 throw new ShrekException("Invalid todo format in file: " + line);
             }
             task = new Todo(desc);
             break;
         case "D":
-            if (parts.length != 4) {
+            if (count != 4) {
                 throw new ShrekException("Invalid deadline format in file: " + line);
             }
-            task = new Deadline(desc, parts[3]);
+            task = new Deadline(desc, field(fields, starts, 3));
             break;
         case "E":
-            if (parts.length != 5) {
+            if (count != 5) {
                 throw new ShrekException("Invalid event format in file: " + line);
             }
-            task = new Event(desc, parts[3], parts[4]);
+            task = new Event(desc, field(fields, starts, 3), field(fields, starts, 4));
             break;
         default:
             throw new ShrekException("Stinky onion (Corrupted task) in storage: " + line);
@@ -315,6 +417,43 @@ public class Parser {
         if (isDone) {
             task.markAsDone();
         }
+        task.setId(id);
         return task;
     }
+
+    /**
+     * Finds where the fields of a stored task start, splitting at each " | " from the left,
+     * and counts them the way {@code fields.split(" \\| ")} would: without trailing empty fields.
+     * Only the first {@code starts.length} starts are kept; the one after the last field marks its end.
+     *
+     * @return the number of fields
+     */
+    private static int splitFields(String fields, int[] starts) {
+        int count = 1;
+        int kept = 0;
+        int start = 0;
+        int separator = fields.indexOf(FIELD_SEPARATOR);
+        while (separator >= 0) {
+            if (separator > start) {
+                kept = count;
+            }
+            start = separator + FIELD_SEPARATOR.length();
+            if (count < starts.length) {
+                starts[count] = start;
+            }
+            count++;
+            separator = fields.indexOf(FIELD_SEPARATOR, start);
+        }
+        if (count < starts.length) {
+            starts[count] = fields.length() + FIELD_SEPARATOR.length();
+        }
+        if (fields.length() > start) {
+            kept = count;
+        }
+        return count == 1 ? 1 : kept;
+    }
+
+    private static String field(String fields, int[] starts, int index) {
+        return fields.substring(starts[index], starts[index + 1] - FIELD_SEPARATOR.length());
+    }
 }
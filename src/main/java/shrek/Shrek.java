@@ -1,10 +1,21 @@
 package shrek;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 import instruction.Instruction;
 import parser.Parser;
 import storage.Storage;
+import task.CompactTaskList;
+import task.ConcurrentTaskList;
 import task.TaskList;
 import ui.Ui;
 import util.ShrekException;
@@ -14,6 +25,11 @@ import util.ShrekException;
  * This class serves as the core logic for processing user commands and managing tasks.
  */
 public class Shrek {
+    /** A script line that saves the changes made so far; see {@link #executeBatch}. */
+    public static final String CHECKPOINT = "checkpoint";
+    /** The command line flag that runs a script file instead of reading commands interactively. */
+    public static final String SCRIPT_FLAG = "--script";
+
     private final Storage storage;
     private final TaskList tasks;
     private final Ui ui;
@@ -24,9 +40,54 @@ public class Shrek {
      * @param filePath the path to the data file
      */
     public Shrek(String filePath) {
+        this(filePath, Storage.Mode.REWRITE);
+    }
+
+    /**
+     * Constructs a new Shrek instance with the specified file path and storage mode.
+     *
+     * @param filePath the path to the data file
+     * @param mode     how task changes are persisted
+     */
+    public Shrek(String filePath, Storage.Mode mode) {
+        this(filePath, mode, false);
+    }
+
+    /**
+     * Constructs a new Shrek instance that may also serve commands from several threads at once.
+     * When concurrent, commands that change tasks run one at a time, each together with its save,
+     * while read-only commands run alongside each other.
+     *
+     * @param filePath     the path to the data file
+     * @param mode         how task changes are persisted
+     * @param isConcurrent whether {@link #getResponse} may be called from several threads
+     */
+    public Shrek(String filePath, Storage.Mode mode, boolean isConcurrent) {
+        this(filePath, mode, isConcurrent, false);
+    }
+
+    /**
+     * Constructs a new Shrek instance that may keep its tasks in a {@link CompactTaskList},
+     * for swamps too large to hold as task objects. A compact list is not shared between threads,
+     * so a concurrent instance keeps task objects either way. In {@link Storage.Mode#MAPPED} the tasks are
+     * always kept compact, in the mapped data file.
+     *
+     * @param filePath     the path to the data file
+     * @param mode         how task changes are persisted
+     * @param isConcurrent whether {@link #getResponse} may be called from several threads
+     * @param isCompact    whether to keep the tasks in columns rather than as objects
+     */
+    public Shrek(String filePath, Storage.Mode mode, boolean isConcurrent, boolean isCompact) {
         ui = new Ui();
-        storage = new Storage(filePath);
-        tasks = new TaskList(storage.load());
+        Parser.warmUp();
+        storage = new Storage(filePath, mode);
+        if (isConcurrent) {
+            tasks = new ConcurrentTaskList(storage.load());
+        } else if (isCompact || mode == Storage.Mode.MAPPED) {
+            tasks = storage.loadCompact();
+        } else {
+            tasks = new TaskList(storage.load());
+        }
     }
 
     /**
@@ -43,13 +104,95 @@ public class Shrek {
 
         try {
             Instruction instruction = Parser.parse(input);
-            String response = instruction.execute(tasks, ui, storage);
+            String response = execute(instruction);
             return response;
         } catch (ShrekException e) {
             return ui.showError(e.getMessage());
         }
     }
 
+    /**
+     * One parsed line of a script: its instruction, or the error it failed to parse with,
+     * or neither for a checkpoint.
+     */
+    private static class Step {
+        private final int lineNumber;
+        private final Instruction instruction;
+        private final String error;
+
+        Step(int lineNumber, Instruction instruction, String error) {
+            this.lineNumber = lineNumber;
+            this.instruction = instruction;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Runs a script of commands, one per line, and returns the response to each.
+     * Every line is parsed before any runs. A line that fails to parse or run gets an error response
+     * naming its line number, and the rest of the script still runs. Changes are saved once at the end,
+     * and at each line that says {@value #CHECKPOINT}, instead of after every command.
+     * Blank lines are skipped, and a bye command ends the script.
+     * Must not run alongside other commands on the same instance.
+     *
+     * @param lines the commands
+     * @return the responses, in order
+     */
+    public List<String> executeBatch(Iterable<String> lines) {
+        List<Step> steps = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : lines) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (line.trim().equalsIgnoreCase(CHECKPOINT)) {
+                steps.add(new Step(lineNumber, null, null));
+                continue;
+            }
+            try {
+                steps.add(new Step(lineNumber, Parser.parse(line), null));
+            } catch (ShrekException e) {
+                steps.add(new Step(lineNumber, null, e.getMessage()));
+            }
+        }
+
+        List<String> responses = new ArrayList<>(steps.size());
+        storage.beginBatch();
+        try {
+            for (Step step : steps) {
+                if (step.error != null) {
+                    responses.add(ui.showError("Line " + step.lineNumber + ": " + step.error));
+                } else if (step.instruction == null) {
+                    storage.checkpoint(tasks);
+                } else {
+                    try {
+                        responses.add(execute(step.instruction));
+                    } catch (ShrekException e) {
+                        responses.add(ui.showError("Line " + step.lineNumber + ": " + e.getMessage()));
+                    }
+                    if (step.instruction.isExit()) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            storage.endBatch(tasks);
+        }
+        return responses;
+    }
+
+    /**
+     * Executes an instruction, holding the task list's write lock for the whole instruction
+     * when the list is shared and the instruction changes it.
+     */
+    private String execute(Instruction instruction) throws ShrekException {
+        if (tasks instanceof ConcurrentTaskList shared && !instruction.isReadOnly()) {
+            return shared.update(list -> instruction.execute(list, ui, storage));
+        }
+        return instruction.execute(tasks, ui, storage);
+    }
+
     /**
      * Returns the welcome message for the application.
      * Used by GUI to display initial greeting.
@@ -64,10 +207,35 @@ public class Shrek {
      * The main entry point of the application for text-based mode.
      * This is kept for backward compatibility but primarily used for testing.
      *
-     * @param args command line arguments (not used)
+     * @param args optionally {@value #SCRIPT_FLAG} and the path of a script to run instead
      */
     public static void main(String[] args) {
-        new Shrek("./data/shrek.txt").runTextMode();
+        Shrek shrek = new Shrek("./data/shrek.txt");
+        if (args.length == 2 && args[0].equals(SCRIPT_FLAG)) {
+            shrek.runScript(Path.of(args[1]));
+        } else {
+            shrek.runTextMode();
+        }
+    }
+
+    /**
+     * Runs a script file through {@link #executeBatch} and prints the responses.
+     *
+     * @param script the script, one command per line
+     */
+    public void runScript(Path script) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(script, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println(ui.showError("Shrek can't read the script: " + e.getMessage()));
+            return;
+        }
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        for (String response : executeBatch(lines)) {
+            out.println(response);
+        }
+        out.flush();
     }
 
     /**
@@ -87,7 +255,7 @@ public class Shrek {
 
             try {
                 Instruction instruction = Parser.parse(input);
-                String response = instruction.execute(tasks, ui, storage);
+                String response = execute(instruction);
                 System.out.println(response);
                 isExit = instruction.isExit();
             } catch (ShrekException e) {
@@ -0,0 +1,321 @@
+package storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import task.DateTimeCodec;
+import task.Deadline;
+import task.Event;
+import task.Task;
+import task.Todo;
+import util.ShrekException;
+
+/**
+ * Compact binary snapshot format for tasks, read and written without any date formatting or regexes.
+ *
+ * <p>Layout (all numbers big-endian):
+ * <pre>
+ * header: "SHRK" | version (1 byte) | record count (int)
+ * record: type ('T', 'D' or 'E'; bit 7 set if done, bit 5 set if deleted) | ID (varint) | times | description
+ *   times: nothing for T, epoch minute (long) for D, start and end epoch minutes for E
+ *   description: UTF-8 byte length (varint) | UTF-8 bytes
+ * </pre>
+ *
+ * <p>Deleted records (version 2) are left in place as tombstones by {@link RecordFile}
+ * and skipped when reading; a full save drops them. Task IDs were added in version 3;
+ * tasks from older files are numbered when loaded.
+ */
+class BinaryTaskFormat {
+    static final byte VERSION = 3;
+    static final int DONE_BIT = 0x80;
+    static final int DELETED_BIT = 0x20;
+    /** Offset of the record count in the header. */
+    static final int COUNT_OFFSET = 5;
+    static final int HEADER_BYTES = 9;
+
+    private static final byte[] MAGIC = {'S', 'H', 'R', 'K'};
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Counts the bytes read through it, so that record offsets can be reported.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long position;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the binary snapshot header.
+     *
+     * @param file the file to check
+     * @return true if the file is a binary snapshot
+     * @throws IOException if the file cannot be read
+     */
+    static boolean isBinary(File file) throws IOException {
+        byte[] start = new byte[MAGIC.length];
+        try (InputStream in = new FileInputStream(file)) {
+            return in.readNBytes(start, 0, start.length) == start.length && Arrays.equals(start, MAGIC);
+        }
+    }
+
+    /**
+     * Returns the version of a binary snapshot.
+     *
+     * @param file the snapshot file
+     * @return the version byte
+     * @throws IOException if the file cannot be read or is too short
+     */
+    static int version(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.skipNBytes(MAGIC.length);
+            return in.readUnsignedByte();
+        }
+    }
+
+    /**
+     * Writes tasks as a binary snapshot.
+     *
+     * @param tasks  the tasks to write
+     * @param isDone the completion status to write for each task
+     * @param out    the stream to write to; flushed but not closed
+     * @param onOffset receives the file offset of each record in order, or null
+     * @throws IOException if the stream cannot be written
+     */
+    static void write(List<Task> tasks, boolean[] isDone, OutputStream out, LongConsumer onOffset)
+            throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_BYTES));
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(tasks.size());
+        long offset = HEADER_BYTES;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (onOffset != null) {
+                onOffset.accept(offset);
+            }
+            int before = data.size();
+            writeRecord(data, tasks.get(i), isDone[i]);
+            offset += data.size() - before; // size() wraps past 2 GB, the difference does not
+        }
+        data.flush();
+    }
+
+    /**
+     * Returns the first byte of a task's record, holding its type and completion status.
+     *
+     * @param task   the task
+     * @param isDone the completion status
+     * @return the record's first byte
+     */
+    static byte typeByte(Task task, boolean isDone) {
+        char type = task instanceof Deadline ? 'D' : task instanceof Event ? 'E' : 'T';
+        return (byte) (isDone ? type | DONE_BIT : type);
+    }
+
+    /**
+     * Writes a single task record.
+     *
+     * @param data   the stream to write to
+     * @param task   the task to write
+     * @param isDone the completion status to write
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeRecord(DataOutputStream data, Task task, boolean isDone) throws IOException {
+        data.writeByte(typeByte(task, isDone));
+        writeVarLong(data, task.getId());
+        if (task instanceof Deadline d) {
+            data.writeLong(DateTimeCodec.toEpochMinute(d.getBy()));
+        } else if (task instanceof Event e) {
+            data.writeLong(DateTimeCodec.toEpochMinute(e.getFrom()));
+            data.writeLong(DateTimeCodec.toEpochMinute(e.getTo()));
+        }
+
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        writeVarLong(data, description.length);
+        data.write(description);
+    }
+
+    private static void writeVarLong(DataOutputStream data, long value) throws IOException {
+        long rest = value;
+        while ((rest & ~0x7FL) != 0) {
+            data.writeByte((int) (rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        data.writeByte((int) rest);
+    }
+
+    private static long readVarLong(DataInputStream data) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > Long.SIZE) {
+                throw new IOException("Stinky onion (Corrupted task) in binary snapshot, number too long");
+            }
+            int b = data.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Reads every task in a binary snapshot, skipping deleted records.
+     *
+     * @param file     the snapshot file
+     * @param onOffset receives the file offset of each task's record in order, or null
+     * @param onEnd    receives the offset just past the last counted record, or null; anything
+     *                 after it was left by a crash before the record count was updated
+     * @return the tasks, in snapshot order
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    static ArrayList<Task> read(File file, LongConsumer onOffset, LongConsumer onEnd) throws IOException {
+        CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(file), BUFFER_BYTES));
+        try (DataInputStream data = new DataInputStream(counter)) {
+            byte[] magic = new byte[MAGIC.length];
+            data.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a binary snapshot: " + file);
+            }
+            int version = data.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported binary snapshot version " + version + ": " + file);
+            }
+
+            long length = file.length();
+            int count = data.readInt();
+            // every record takes at least two bytes, so a count beyond that cannot be real
+            if (count < 0 || count > (length - HEADER_BYTES) / 2) {
+                throw new IOException("Stinky onion (Corrupted task) in binary snapshot, " + count
+                        + " records in " + length + " bytes: " + file);
+            }
+            ArrayList<Task> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long offset = counter.position;
+                Task task = readRecord(data, version, length - offset);
+                if (task == null) {
+                    continue; // tombstone
+                }
+                if (onOffset != null) {
+                    onOffset.accept(offset);
+                }
+                tasks.add(task);
+            }
+            if (onEnd != null) {
+                onEnd.accept(counter.position);
+            }
+            return tasks;
+        } catch (EOFException e) {
+            throw new IOException("Truncated binary snapshot: " + file);
+        }
+    }
+
+    /**
+     * Reads a single task record.
+     *
+     * @param data    the stream to read from
+     * @param version the version of the snapshot the record is in
+     * @param limit   the most bytes the record can take up, i.e. what is left of the file
+     * @return the task, or null if the record is a tombstone
+     * @throws IOException if the stream cannot be read or the record is corrupted
+     */
+    static Task readRecord(DataInputStream data, int version, long limit) throws IOException {
+        int header = data.readUnsignedByte();
+        boolean isDone = (header & DONE_BIT) != 0;
+        boolean isDeleted = (header & DELETED_BIT) != 0;
+        char type = (char) (header & ~(DONE_BIT | DELETED_BIT));
+        long id = version >= 3 ? readVarLong(data) : 0;
+
+        LocalDateTime first = null;
+        LocalDateTime second = null;
+        if (type == 'D' || type == 'E') {
+            first = readTime(data);
+        }
+        if (type == 'E') {
+            second = readTime(data);
+        }
+
+        long length = readVarLong(data);
+        if (length < 0 || length > limit) {
+            throw new IOException("Stinky onion (Corrupted task) in binary snapshot, description of "
+                    + length + " bytes with " + limit + " left");
+        }
+        byte[] bytes = new byte[(int) length];
+        data.readFully(bytes);
+        if (isDeleted) {
+            return null;
+        }
+        String description = new String(bytes, StandardCharsets.UTF_8);
+
+        Task task;
+        try {
+            switch (type) {
+            case 'T':
+                task = new Todo(description);
+                break;
+            case 'D':
+                task = new Deadline(description, first);
+                break;
+            case 'E':
+                task = new Event(description, first, second);
+                break;
+            default:
+                throw new IOException("Stinky onion (Corrupted task) in binary snapshot, type " + (int) type);
+            }
+        } catch (ShrekException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        if (isDone) {
+            task.markAsDone();
+        }
+        task.clearDirty();
+        task.setId(id);
+        return task;
+    }
+
+    private static LocalDateTime readTime(DataInputStream data) throws IOException {
+        long epochMinute = data.readLong();
+        try {
+            return DateTimeCodec.fromEpochMinute(epochMinute);
+        } catch (ArithmeticException | DateTimeException e) {
+            throw new IOException("Stinky onion (Corrupted task) in binary snapshot, time " + epochMinute);
+        }
+    }
+}
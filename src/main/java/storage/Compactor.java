@@ -0,0 +1,255 @@
+package storage;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+import task.Task;
+
+/**
+ * Folds journals back into the main data file by writing a fresh snapshot of the tasks.
+ *
+ * <p>Journals are numbered ({@code shrek.txt.journal.1}, {@code .2}, ...) and replayed in order.
+ * A snapshot covering journals up to {@code k} is switched in with these steps, each of which
+ * leaves the files in a state that {@link #recover()} can load correctly after a crash:
+ * <ol>
+ * <li>write the tasks to {@code shrek.txt.snapshot.k.tmp} and sync it to disk,</li>
+ * <li>rename it to {@code shrek.txt.snapshot.k}, marking the snapshot as complete,</li>
+ * <li>delete journals up to {@code k}, which the snapshot already contains,</li>
+ * <li>move the snapshot over the main data file.</li>
+ * </ol>
+ */
+class Compactor {
+    /** Journals shorter than this are never worth compacting. */
+    static final int MIN_JOURNAL_RECORDS = 1_000;
+    /** Compact once replaying the journal costs this fraction of loading the data file. */
+    static final double MAX_REPLAY_RATIO = 0.5;
+    /** Compact once the journal grows past this size, whatever the ratio. */
+    static final long MAX_JOURNAL_BYTES = 4L * 1024 * 1024;
+
+    private static final String JOURNAL_INFIX = ".journal.";
+    private static final String SNAPSHOT_INFIX = ".snapshot.";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final File file;
+    private Storage.Format format = Storage.Format.TEXT;
+    private ExecutorService executor;
+    private Future<?> running;
+
+    /**
+     * Constructs a Compactor for the specified data file.
+     *
+     * @param file the main data file
+     */
+    Compactor(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Sets the format snapshots are written in.
+     *
+     * @param format the snapshot format
+     */
+    void setFormat(Storage.Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Returns the journal file with the given number.
+     *
+     * @param number the journal number
+     * @return the journal file
+     */
+    File journalFile(int number) {
+        return new File(file.getPath() + JOURNAL_INFIX + number);
+    }
+
+    /**
+     * Returns the numbers of all journals next to the data file, in replay order.
+     *
+     * @return the sorted journal numbers
+     */
+    List<Integer> journalNumbers() {
+        return numbersWithInfix(JOURNAL_INFIX);
+    }
+
+    /**
+     * Decides whether the journal has grown enough to be worth compacting.
+     *
+     * @param journalRecords the number of records in all journals
+     * @param journalBytes   the approximate size of all journals
+     * @param baseRecords    the number of records in the main data file
+     * @return true if a compaction should be started
+     */
+    boolean shouldCompact(int journalRecords, long journalBytes, int baseRecords) {
+        if (isRunning() || journalRecords < MIN_JOURNAL_RECORDS) {
+            return false;
+        }
+        return journalRecords >= MAX_REPLAY_RATIO * baseRecords || journalBytes >= MAX_JOURNAL_BYTES;
+    }
+
+    /**
+     * Writes a snapshot on the background thread.
+     * The tasks and their status must already be copied, so that commands can keep mutating the task list.
+     *
+     * @param tasks  the copied tasks
+     * @param isDone the completion status of each task at the time of the copy
+     * @param upTo   the number of the last journal the snapshot contains
+     */
+    void startCompaction(List<Task> tasks, boolean[] isDone, int upTo) {
+        awaitIdle();
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "shrek-compactor");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        running = executor.submit(() -> {
+            try {
+                writeSnapshot(tasks, isDone, upTo, null);
+            } catch (IOException e) {
+                System.out.println("Error compacting file: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Blocks until the running compaction, if any, has finished.
+     */
+    void awaitIdle() {
+        if (running == null) {
+            return;
+        }
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Error compacting file: " + e.getCause().getMessage());
+        }
+        running = null;
+    }
+
+    private boolean isRunning() {
+        return running != null && !running.isDone();
+    }
+
+    /**
+     * Writes a snapshot and switches it in as the main data file.
+     *
+     * @param tasks  the tasks to write
+     * @param isDone the completion status of each task
+     * @param upTo   the number of the last journal the snapshot contains
+     * @param onOffset receives the offset of each binary record in order, or null
+     * @throws IOException if any of the files cannot be written
+     */
+    void writeSnapshot(List<Task> tasks, boolean[] isDone, int upTo, LongConsumer onOffset) throws IOException {
+        File tmp = new File(file.getPath() + SNAPSHOT_INFIX + upTo + TMP_SUFFIX);
+        File snapshot = new File(file.getPath() + SNAPSHOT_INFIX + upTo);
+
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            if (format == Storage.Format.BINARY) {
+                BinaryTaskFormat.write(tasks, isDone, out, onOffset);
+            } else {
+                BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                StringBuilder line = new StringBuilder();
+                long previousId = 0;
+                for (int i = 0; i < tasks.size(); i++) {
+                    // IDs are only written where they skip ahead; see TaskList.assignIds
+                    Task task = tasks.get(i);
+                    line.setLength(0);
+                    if (task.getId() == previousId + 1) {
+                        task.appendFileFormat(line, isDone[i]);
+                    } else {
+                        task.appendFileFormatWithId(line, isDone[i]);
+                    }
+                    bw.append(line);
+                    bw.newLine();
+                    previousId = task.getId();
+                }
+                bw.flush();
+            }
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        install(snapshot, upTo);
+    }
+
+    /**
+     * Finishes or discards a compaction that was interrupted, e.g. by the application exiting.
+     * Must be called before the data file and journals are read.
+     *
+     * @throws IOException if the files cannot be cleaned up
+     */
+    void recover() throws IOException {
+        File dir = parentDir();
+        String prefix = file.getName() + SNAPSHOT_INFIX;
+        String[] names = dir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(prefix) && name.endsWith(TMP_SUFFIX)) {
+                    Files.deleteIfExists(new File(dir, name).toPath());
+                }
+            }
+        }
+
+        List<Integer> complete = numbersWithInfix(SNAPSHOT_INFIX);
+        if (!complete.isEmpty()) {
+            int upTo = complete.get(complete.size() - 1);
+            install(new File(file.getPath() + SNAPSHOT_INFIX + upTo), upTo);
+            for (int older : complete.subList(0, complete.size() - 1)) {
+                Files.deleteIfExists(new File(file.getPath() + SNAPSHOT_INFIX + older).toPath());
+            }
+        }
+    }
+
+    private void install(File snapshot, int upTo) throws IOException {
+        for (int number : journalNumbers()) {
+            if (number <= upTo) {
+                Files.deleteIfExists(journalFile(number).toPath());
+            }
+        }
+        Files.move(snapshot.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<Integer> numbersWithInfix(String infix) {
+        List<Integer> numbers = new ArrayList<>();
+        String prefix = file.getName() + infix;
+        String[] names = parentDir().list();
+        if (names == null) {
+            return numbers;
+        }
+        for (String name : names) {
+            if (!name.startsWith(prefix)) {
+                continue;
+            }
+            try {
+                numbers.add(Integer.parseInt(name.substring(prefix.length())));
+            } catch (NumberFormatException e) {
+                // not one of ours, e.g. a leftover .tmp file
+            }
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private File parentDir() {
+        File dir = file.getAbsoluteFile().getParentFile();
+        assert dir != null : "Data file should live in a directory";
+        return dir;
+    }
+}
@@ -0,0 +1,50 @@
+package storage;
+
+import java.util.ArrayList;
+
+import task.Task;
+
+/**
+ * Converts data files between the text and binary formats.
+ * Journals next to the source file are applied, so the target holds the complete task list.
+ */
+public class FormatConverter {
+    /**
+     * Converts a data file into the given format.
+     *
+     * @param sourcePath the data file to read, in either format
+     * @param targetPath the data file to write
+     * @param format     the format to write
+     * @return the number of tasks converted
+     */
+    public static int convert(String sourcePath, String targetPath, Storage.Format format) {
+        ArrayList<Task> tasks = new Storage(sourcePath).load();
+        Storage target = new Storage(targetPath);
+        target.setFormat(format);
+        target.save(tasks);
+        return tasks.size();
+    }
+
+    /**
+     * Converts a data file from the command line.
+     * Usage: {@code FormatConverter text|binary <source> <target>}
+     *
+     * @param args the target format, the source path and the target path
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: FormatConverter text|binary <source> <target>");
+            return;
+        }
+
+        Storage.Format format;
+        try {
+            format = Storage.Format.valueOf(args[0].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown format: " + args[0] + ". Use text or binary.");
+            return;
+        }
+        int count = convert(args[1], args[2], format);
+        System.out.println("Converted " + count + " tasks to " + args[2]);
+    }
+}
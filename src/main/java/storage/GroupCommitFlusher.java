@@ -0,0 +1,190 @@
+package storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects journal records from commands and writes them to disk in groups on a single background thread.
+ * Every record that arrives within one commit window, or up to a maximum number of records,
+ * is written with one write and one sync instead of one of each per command.
+ * A group that fails to write stays queued and is tried again with the next record or flush,
+ * and anyone waiting for it to be durable is told of the failure.
+ */
+class GroupCommitFlusher {
+    /**
+     * Destination for a group of records, e.g. the current journal.
+     */
+    interface Sink {
+        /**
+         * Writes and syncs a group of records in order.
+         *
+         * @param records the records to write
+         * @throws IOException if the records cannot be written
+         */
+        void write(List<String> records) throws IOException;
+    }
+
+    private final Sink sink;
+    private final Object lock = new Object();
+
+    private long windowNanos;
+    private int maxRecords;
+    private ArrayList<String> pending = new ArrayList<>();
+    private long enqueuedCount;
+    private long durableCount;
+    private boolean isFlushRequested;
+    private boolean isStalled; // the last write failed; wait for a record or flush before trying again
+    private long failureCount;
+    private IOException failure;
+
+    /**
+     * Constructs a GroupCommitFlusher and starts its background thread.
+     *
+     * @param sink         where groups of records are written
+     * @param windowMillis how long to keep collecting records after the first one arrives
+     * @param maxRecords   the number of records that triggers a write before the window ends
+     */
+    GroupCommitFlusher(Sink sink, long windowMillis, int maxRecords) {
+        this.sink = sink;
+        setWindow(windowMillis, maxRecords);
+
+        Thread flusher = new Thread(this::run, "shrek-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        // closing the window without "bye" still writes whatever is pending
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                awaitDurable();
+            } catch (IOException e) {
+                System.out.println("Error saving file: " + e.getMessage());
+            }
+        }, "shrek-flusher-shutdown"));
+    }
+
+    /**
+     * Changes how long groups stay open and how many records close them early.
+     * Records already queued stay queued and go out with the next group.
+     *
+     * @param windowMillis how long to keep collecting records after the first one arrives
+     * @param maxRecords   the number of records that triggers a write before the window ends
+     */
+    void setWindow(long windowMillis, int maxRecords) {
+        assert windowMillis >= 0 && maxRecords > 0 : "Commit window should be non-negative and non-empty";
+        synchronized (lock) {
+            this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            this.maxRecords = maxRecords;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Queues a record to be written with the next group. Returns without waiting for the disk.
+     *
+     * @param record the record to write
+     */
+    void enqueue(String record) {
+        synchronized (lock) {
+            pending.add(record);
+            enqueuedCount++;
+            isStalled = false;
+            if (pending.size() == 1 || pending.size() >= maxRecords) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Asks the flusher to write pending records now instead of waiting for the window to end.
+     */
+    void flush() {
+        synchronized (lock) {
+            isFlushRequested = true;
+            isStalled = false;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until every record queued before this call has been written and synced.
+     *
+     * @throws IOException if writing them failed; they stay queued
+     */
+    void awaitDurable() throws IOException {
+        synchronized (lock) {
+            long target = enqueuedCount;
+            long failuresBefore = failureCount;
+            if (durableCount < target) {
+                isFlushRequested = true;
+                isStalled = false;
+                lock.notifyAll();
+            }
+            try {
+                while (durableCount < target) {
+                    if (failureCount != failuresBefore) {
+                        throw new IOException("Queued changes could not be written: " + failure.getMessage(), failure);
+                    }
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            ArrayList<String> group;
+            long groupEnd;
+            synchronized (lock) {
+                try {
+                    waitForGroup();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                group = pending;
+                groupEnd = enqueuedCount;
+                pending = new ArrayList<>();
+                isFlushRequested = false;
+            }
+
+            try {
+                sink.write(group);
+            } catch (IOException e) {
+                System.out.println("Error saving file: " + e.getMessage());
+                synchronized (lock) {
+                    // put the group back in front of anything queued since, so order is kept
+                    group.addAll(pending);
+                    pending = group;
+                    isStalled = true;
+                    failureCount++;
+                    failure = e;
+                    lock.notifyAll();
+                }
+                continue;
+            }
+
+            synchronized (lock) {
+                durableCount = groupEnd;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits, holding the lock, until a group is ready: the window has ended,
+     * enough records have arrived, or a flush was requested.
+     */
+    private void waitForGroup() throws InterruptedException {
+        while (pending.isEmpty() || isStalled) {
+            lock.wait();
+        }
+        long deadline = System.nanoTime() + windowNanos;
+        long remaining = windowNanos;
+        while (pending.size() < maxRecords && !isFlushRequested && remaining > 0) {
+            TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
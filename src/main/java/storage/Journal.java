@@ -0,0 +1,214 @@
+package storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import parser.Parser;
+import task.Task;
+import util.ShrekException;
+
+/**
+ * Append-only log of task mutations kept next to the main data file.
+ * Journals are numbered and replayed in order; see {@link Compactor} for how they are folded back in.
+ * Each mutation is written as one small record so that a change costs O(1) I/O
+ * instead of a rewrite of the whole data file.
+ *
+ * <p>Record formats (indices are zero-based positions at the time of the change):
+ * <pre>
+ * + | #3 | T | 0 | read book   (add, followed by the task's ID and file format)
+ * M | 4                       (mark as done)
+ * U | 4                       (mark as not done)
+ * - | 4                       (delete)
+ * </pre>
+ */
+class Journal {
+    static final String ADD = "+";
+    static final String MARK = "M";
+    static final String UNMARK = "U";
+    static final String DELETE = "-";
+
+    private static final String SEPARATOR = " | ";
+
+    private final File file;
+    private FileOutputStream out;
+    private BufferedWriter writer;
+    private int recordCount;
+    private long byteCount;
+
+    /**
+     * Constructs a Journal backed by the specified file.
+     *
+     * @param file the journal file
+     */
+    Journal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the record for adding a task.
+     *
+     * @param task the task that was added
+     * @return the journal record
+     */
+    static String addRecord(Task task) {
+        return ADD + SEPARATOR + task.toFileFormatWithId(task.isDone());
+    }
+
+    /**
+     * Returns the record for marking or unmarking the task at a position.
+     *
+     * @param index  the zero-based position of the task
+     * @param isDone true if the task was marked as done
+     * @return the journal record
+     */
+    static String markRecord(int index, boolean isDone) {
+        return (isDone ? MARK : UNMARK) + SEPARATOR + index;
+    }
+
+    /**
+     * Returns the record for deleting the task at a position.
+     *
+     * @param index the zero-based position of the task
+     * @return the journal record
+     */
+    static String deleteRecord(int index) {
+        return DELETE + SEPARATOR + index;
+    }
+
+    /**
+     * Appends a single record to the end of the journal.
+     *
+     * @param record the record to append
+     * @throws IOException if the journal cannot be written
+     */
+    void append(String record) throws IOException {
+        appendAll(List.of(record), false);
+    }
+
+    /**
+     * Appends a group of records to the end of the journal with a single write.
+     *
+     * @param records the records to append, in order
+     * @param isSynced true to also wait until the records are on the storage device
+     * @throws IOException if the journal cannot be written
+     */
+    void appendAll(List<String> records, boolean isSynced) throws IOException {
+        if (writer == null) {
+            out = new FileOutputStream(file, true);
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+        for (String record : records) {
+            writer.write(record);
+            writer.newLine();
+            recordCount++;
+            byteCount += record.length() + 1;
+        }
+        writer.flush();
+        if (isSynced) {
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * Replays every record in the journal on top of the given tasks.
+     * Records that cannot be applied are skipped.
+     *
+     * @param tasks the tasks loaded from the main data file, updated in place
+     * @throws IOException if the journal cannot be read
+     */
+    void replay(ArrayList<Task> tasks) throws IOException {
+        recordCount = 0;
+        byteCount = 0;
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                recordCount++;
+                byteCount += line.length() + 1;
+                try {
+                    apply(line, tasks);
+                } catch (ShrekException e) {
+                    System.out.println("Skipping corrupted journal record: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void apply(String record, ArrayList<Task> tasks) throws ShrekException {
+        String[] parts = record.split(" \\| ", 2);
+        if (parts.length < 2) {
+            throw new ShrekException(record);
+        }
+
+        if (parts[0].equals(ADD)) {
+            tasks.add(Parser.parseTaskFromFile(parts[1]));
+            return;
+        }
+
+        int index;
+        try {
+            index = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new ShrekException(record);
+        }
+        if (index < 0 || index >= tasks.size()) {
+            throw new ShrekException(record);
+        }
+
+        switch (parts[0]) {
+        case MARK:
+            tasks.get(index).markAsDone();
+            break;
+        case UNMARK:
+            tasks.get(index).markAsNotDone();
+            break;
+        case DELETE:
+            tasks.remove(index);
+            break;
+        default:
+            throw new ShrekException(record);
+        }
+    }
+
+    /**
+     * Returns the number of records currently in the journal.
+     *
+     * @return the record count
+     */
+    int size() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the approximate size of the journal in bytes.
+     *
+     * @return the byte count
+     */
+    long bytes() {
+        return byteCount;
+    }
+
+    /**
+     * Closes the underlying writer, if open.
+     *
+     * @throws IOException if the writer cannot be closed
+     */
+    void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import parser.Parser;
+import task.Task;
+import util.ShrekException;
+
+/**
+ * Loads large data files by memory-mapping them and parsing chunks of lines on all cores.
+ * Chunks are split on line boundaries and joined back in file order, so the result is the same
+ * as reading the file line by line.
+ */
+class MappedTaskLoader {
+    /** Files smaller than this load faster with a plain reader. */
+    static final long MIN_PARALLEL_BYTES = 4L * 1024 * 1024;
+
+    private static final long MIN_CHUNK_BYTES = 1024 * 1024;
+    private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int SCAN_BUFFER_BYTES = 8 * 1024;
+
+    /**
+     * Result of parsing one chunk: its tasks, its corrupted lines and how many lines it held.
+     */
+    private static class Chunk {
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private final List<Integer> errorLines = new ArrayList<>();
+        private int lineCount;
+    }
+
+    /**
+     * Loads every task in the file, in file order.
+     * Corrupted lines are reported with their line number and skipped.
+     *
+     * @param file the data file to load
+     * @return the tasks in the file
+     * @throws IOException if the file cannot be read
+     */
+    static ArrayList<Task> load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = splitOnLines(channel);
+
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            List<ForkJoinTask<Chunk>> parsing = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY,
+                        bounds[i], bounds[i + 1] - bounds[i]);
+                parsing.add(pool.submit(() -> parse(region)));
+            }
+
+            ArrayList<Task> tasks = new ArrayList<>();
+            int firstLine = 1;
+            for (ForkJoinTask<Chunk> pending : parsing) {
+                Chunk chunk = pending.join();
+                tasks.addAll(chunk.tasks);
+                for (int i = 0; i < chunk.errors.size(); i++) {
+                    System.out.println("Skipping corrupted line " + (firstLine + chunk.errorLines.get(i))
+                            + ": " + chunk.errors.get(i));
+                }
+                firstLine += chunk.lineCount;
+            }
+            return tasks;
+        }
+    }
+
+    /**
+     * Picks chunk boundaries so that every chunk starts at the beginning of a line.
+     *
+     * @return the sorted offsets, starting with 0 and ending with the file size
+     */
+    private static long[] splitOnLines(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        long chunkCount = Math.max(1, Math.min((long) threads * CHUNKS_PER_THREAD, size / MIN_CHUNK_BYTES));
+        chunkCount = Math.max(chunkCount, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+        for (long i = 1; i < chunkCount; i++) {
+            long start = Math.max(size * i / chunkCount, bounds.get(bounds.size() - 1));
+            long next = nextLineStart(channel, start, scan);
+            if (next > bounds.get(bounds.size() - 1) && next < size) {
+                bounds.add(next);
+            }
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (true) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private static Chunk parse(MappedByteBuffer region) {
+        Chunk chunk = new Chunk();
+        int end = region.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i < end && region.get(i) != '\n') {
+                continue;
+            }
+            if (i == end && lineStart == end) {
+                break; // the chunk ended with a newline
+            }
+
+            int lineEnd = i;
+            if (lineEnd > lineStart && region.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            byte[] bytes = new byte[lineEnd - lineStart];
+            region.get(lineStart, bytes);
+            String line = new String(bytes, StandardCharsets.UTF_8);
+            try {
+                chunk.tasks.add(Parser.parseTaskFromFile(line));
+            } catch (ShrekException e) {
+                chunk.errorLines.add(chunk.lineCount);
+                chunk.errors.add(e.getMessage());
+            }
+            chunk.lineCount++;
+            lineStart = i + 1;
+        }
+        return chunk;
+    }
+}
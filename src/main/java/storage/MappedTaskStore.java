@@ -0,0 +1,441 @@
+package storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.Arrays;
+
+import task.DateTimeCodec;
+import task.Task;
+import task.TaskStore;
+
+/**
+ * Binary data file used in place through a memory mapping, as the columns of a {@code CompactTaskList}.
+ *
+ * <p>The records stay in the mapped file, outside the Java heap, in the {@link BinaryTaskFormat} layout.
+ * Opening the file walks the records once to check them and note where each starts, without decoding
+ * descriptions; the heap then holds one int per record. Types, times, IDs and status are read straight
+ * from the mapping, and {@link #get} decodes a whole record only when a task is asked for, e.g. to display it.
+ *
+ * <p>Marking and deleting a task change one byte of the mapping, so {@link #flush} writes back only the
+ * pages touched. Added tasks are held on the heap until {@link #flush} appends them to the file, before
+ * the record count that makes them part of it, and maps the grown file. Deleted records stay as
+ * tombstones until {@link #reclaim}. A mapping holds at most 2 GB, which limits the size of the file.
+ */
+class MappedTaskStore implements TaskStore, Closeable {
+    private static final String RECLAIM_SUFFIX = ".reclaim";
+
+    /**
+     * Reads a byte buffer as a stream, so records can be decoded straight from the mapping.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+
+    private final File file;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int end; // just past the last record in the file
+    private int[] offsets = new int[16]; // start of each slot's record; from end on, in pending
+    private int slots;
+    private int tombstones;
+    private byte[] pending = new byte[256]; // records added since the last flush
+    private int pendingBytes;
+
+    private MappedTaskStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Maps a binary data file of the current version and checks every record.
+     * A record appended by a crash before it was counted is cut off.
+     *
+     * @param file the data file
+     * @return the store
+     * @throws IOException if the file cannot be mapped or is not a valid, current snapshot
+     */
+    static MappedTaskStore open(File file) throws IOException {
+        Files.deleteIfExists(new File(file.getPath() + RECLAIM_SUFFIX).toPath()); // left by a crash
+        MappedTaskStore store = new MappedTaskStore(file);
+        store.map();
+        return store;
+    }
+
+    private void map() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Swamp too large to map: " + file);
+            }
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            index();
+            if (end < length) {
+                map = channel.map(FileChannel.MapMode.READ_WRITE, 0, end);
+                channel.truncate(end);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Walks the counted records, checking their types, IDs, times and lengths and noting their offsets.
+     */
+    private void index() throws IOException {
+        if (map.limit() < BinaryTaskFormat.HEADER_BYTES || !BinaryTaskFormat.isBinary(file)
+                || map.get(BinaryTaskFormat.COUNT_OFFSET - 1) != BinaryTaskFormat.VERSION) {
+            throw new IOException("Not a current binary snapshot: " + file);
+        }
+        ByteBuffer buffer = map.duplicate();
+        int count = buffer.getInt(BinaryTaskFormat.COUNT_OFFSET);
+        if (count < 0 || count > (buffer.limit() - BinaryTaskFormat.HEADER_BYTES) / 2) {
+            throw corrupted("" + count + " records in " + buffer.limit() + " bytes");
+        }
+        slots = 0;
+        tombstones = 0;
+        buffer.position(BinaryTaskFormat.HEADER_BYTES);
+        try {
+            long previousId = 0;
+            for (int i = 0; i < count; i++) {
+                int offset = buffer.position();
+                int header = buffer.get() & 0xFF;
+                char type = typeOf(header);
+                if (type != 'T' && type != 'D' && type != 'E') {
+                    throw corrupted("type " + (int) type + " at byte " + offset);
+                }
+                long id = readVarLong(buffer);
+                if (id <= previousId) {
+                    throw corrupted("ID " + id + " after " + previousId + " at byte " + offset);
+                }
+                previousId = id;
+                if (type != 'T') {
+                    long start = readTime(buffer);
+                    if (type == 'E' && readTime(buffer) < start) {
+                        throw corrupted("event ending before it starts at byte " + offset);
+                    }
+                }
+                long length = readVarLong(buffer);
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException("Truncated binary snapshot: " + file);
+                }
+                buffer.position(buffer.position() + (int) length);
+                addSlot(offset);
+                if ((header & BinaryTaskFormat.DELETED_BIT) != 0) {
+                    tombstones++;
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated binary snapshot: " + file);
+        }
+        end = buffer.position();
+    }
+
+    private IOException corrupted(String detail) {
+        return new IOException("Stinky onion (Corrupted task) in binary snapshot, " + detail + ": " + file);
+    }
+
+    private long readTime(ByteBuffer buffer) throws IOException {
+        long epochMinute = buffer.getLong();
+        try {
+            DateTimeCodec.fromEpochMinute(epochMinute);
+        } catch (ArithmeticException | DateTimeException e) {
+            throw corrupted("time " + epochMinute);
+        }
+        return epochMinute;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > Long.SIZE) {
+                throw new IOException("Stinky onion (Corrupted task) in binary snapshot, number too long");
+            }
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static char typeOf(int header) {
+        return (char) (header & ~(BinaryTaskFormat.DONE_BIT | BinaryTaskFormat.DELETED_BIT));
+    }
+
+    @Override
+    public int add(Task task) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            BinaryTaskFormat.writeRecord(new DataOutputStream(bytes), task, task.isDone());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by an in-memory stream
+        }
+        if ((long) end + pendingBytes + bytes.size() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Swamp too large to map: " + file);
+        }
+        if (pendingBytes + bytes.size() > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingBytes + bytes.size()));
+        }
+        System.arraycopy(bytes.toByteArray(), 0, pending, pendingBytes, bytes.size());
+        addSlot(end + pendingBytes);
+        pendingBytes += bytes.size();
+        return slots - 1;
+    }
+
+    @Override
+    public Task get(int slot) {
+        checkSlot(slot);
+        ByteBuffer record = record(slot);
+        try {
+            return BinaryTaskFormat.readRecord(new DataInputStream(new BufferInputStream(record)),
+                    BinaryTaskFormat.VERSION, record.remaining());
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage()); // every record was checked when mapped
+        }
+    }
+
+    @Override
+    public byte type(int slot) {
+        char type = typeOf(header(slot));
+        return type == 'D' ? DEADLINE : type == 'E' ? EVENT : TODO;
+    }
+
+    @Override
+    public long start(int slot) {
+        return afterId(slot).getLong();
+    }
+
+    @Override
+    public long end(int slot) {
+        ByteBuffer record = afterId(slot);
+        record.getLong();
+        return record.getLong();
+    }
+
+    @Override
+    public long getId(int slot) {
+        ByteBuffer record = record(slot);
+        record.get();
+        try {
+            return readVarLong(record);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage()); // every record was checked when mapped
+        }
+    }
+
+    private ByteBuffer afterId(int slot) {
+        ByteBuffer record = record(slot);
+        record.get();
+        while ((record.get() & 0x80) != 0) {
+            // skip the rest of the ID
+        }
+        return record;
+    }
+
+    @Override
+    public int slotOfId(long id) {
+        int low = 0;
+        int high = slots - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = getId(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return isDeleted(mid) ? -1 : mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isDone(int slot) {
+        return (header(slot) & BinaryTaskFormat.DONE_BIT) != 0;
+    }
+
+    @Override
+    public void setDone(int slot, boolean isDone) {
+        checkSlot(slot);
+        int header = header(slot);
+        setHeader(slot, isDone ? header | BinaryTaskFormat.DONE_BIT : header & ~BinaryTaskFormat.DONE_BIT);
+    }
+
+    @Override
+    public boolean isDeleted(int slot) {
+        return (header(slot) & BinaryTaskFormat.DELETED_BIT) != 0;
+    }
+
+    @Override
+    public void remove(int slot) {
+        checkSlot(slot);
+        setHeader(slot, header(slot) | BinaryTaskFormat.DELETED_BIT);
+        tombstones++;
+    }
+
+    @Override
+    public int slots() {
+        return slots;
+    }
+
+    /**
+     * Leaves deleted records in place: squeezing them out means rewriting the file, which
+     * {@link #reclaim} does while nothing refers to slots.
+     *
+     * @return false always
+     */
+    @Override
+    public boolean compact() {
+        return false;
+    }
+
+    /**
+     * Checks whether enough tombstones have built up to be worth rewriting the file.
+     *
+     * @return true if {@link #reclaim} should be called
+     */
+    boolean shouldReclaim() {
+        return tombstones >= RecordFile.MIN_TOMBSTONES_TO_RECLAIM && tombstones >= slots - tombstones;
+    }
+
+    /**
+     * Rewrites the file without its deleted records and maps it again, changing the slots of the rest.
+     * The live records are copied as they are, in runs, without being decoded.
+     * If the new file cannot be written, the old one is kept and still mapped.
+     *
+     * @throws IOException if the file cannot be written or mapped again
+     */
+    void reclaim() throws IOException {
+        flush();
+        File tmp = new File(file.getPath() + RECLAIM_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            FileChannel target = out.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(BinaryTaskFormat.HEADER_BYTES);
+            header.put(map.duplicate().limit(BinaryTaskFormat.COUNT_OFFSET));
+            header.putInt(slots - tombstones).flip();
+            target.write(header);
+            int slot = 0;
+            while (slot < slots) {
+                if (isDeleted(slot)) {
+                    slot++;
+                    continue;
+                }
+                int runStart = offsets[slot];
+                while (slot < slots && !isDeleted(slot)) {
+                    slot++;
+                }
+                int runEnd = slot < slots ? offsets[slot] : end;
+                target.write(map.duplicate().position(runStart).limit(runEnd));
+            }
+            out.getFD().sync();
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        }
+        close();
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map();
+    }
+
+    /**
+     * Appends the tasks added since the last flush to the file, then writes every changed page back.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    void flush() throws IOException {
+        if (pendingBytes > 0) {
+            channel.write(ByteBuffer.wrap(pending, 0, pendingBytes), end);
+            channel.force(false); // the records are on disk before the count that includes them
+            end += pendingBytes;
+            pendingBytes = 0;
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, end);
+            map.putInt(BinaryTaskFormat.COUNT_OFFSET, slots);
+        }
+        map.force();
+    }
+
+    /**
+     * Closes the file. Changes not yet flushed are lost; the mapping itself is released
+     * by the garbage collector.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns a buffer positioned at the start of a slot's record, in the mapping or in the pending records.
+     */
+    private ByteBuffer record(int slot) {
+        int offset = offsets[slot];
+        if (offset < end) {
+            return map.duplicate().position(offset);
+        }
+        return ByteBuffer.wrap(pending, 0, pendingBytes).position(offset - end);
+    }
+
+    private int header(int slot) {
+        int offset = offsets[slot];
+        return (offset < end ? map.get(offset) : pending[offset - end]) & 0xFF;
+    }
+
+    private void setHeader(int slot, int header) {
+        int offset = offsets[slot];
+        if (offset < end) {
+            map.put(offset, (byte) header);
+        } else {
+            pending[offset - end] = (byte) header;
+        }
+    }
+
+    private void addSlot(int offset) {
+        if (slots == offsets.length) {
+            offsets = Arrays.copyOf(offsets, slots * 2);
+        }
+        offsets[slots++] = offset;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= slots || isDeleted(slot)) {
+            throw new IndexOutOfBoundsException("No task in slot " + slot);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import task.Task;
+
+/**
+ * Binary data file updated in place, one record at a time.
+ * Keeps the file offset of every live task's record, so that marking a task rewrites a single byte,
+ * adding a task appends one record and deleting a task turns its record into a tombstone.
+ * Tombstones are reclaimed by the next full save.
+ *
+ * <p>Like {@code TaskList}, a deleted record's offset stays in its slot instead of the offsets after it
+ * being shifted down; a Fenwick tree over the live slots maps task positions to slots.
+ */
+class RecordFile {
+    /** Reclaim tombstones once there are this many and at least as many as live records. */
+    static final int MIN_TOMBSTONES_TO_RECLAIM = 1_000;
+
+    private final File file;
+    private FileChannel channel;
+    private long[] offsets = new long[16]; // slots in file order, deleted ones included
+    private int[] liveCounts = new int[17]; // Fenwick tree, 1-based, counting the live slots
+    private int slots;
+    private int size;
+    private int deletedSlots;
+    private int recordCount;
+    private long end;
+
+    /**
+     * Constructs a RecordFile for the specified binary data file.
+     *
+     * @param file the binary data file
+     */
+    RecordFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Adds the offset of the next live record, in file order, before {@link #open()} is called.
+     *
+     * @param offset the file offset of the record
+     */
+    void addOffset(long offset) {
+        if (slots == offsets.length) {
+            offsets = Arrays.copyOf(offsets, slots * 2);
+            liveCounts = Arrays.copyOf(liveCounts, slots * 2 + 1);
+        }
+        offsets[slots++] = offset;
+        size++;
+        int slot = slots; // 1-based
+        liveCounts[slot] = 1 + prefixCount(slot - 1) - prefixCount(slot - Integer.lowestOneBit(slot));
+    }
+
+    /**
+     * Forgets every record offset, e.g. before the file is rewritten.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    void reset() throws IOException {
+        close();
+        end = -1;
+        slots = 0;
+        size = 0;
+        deletedSlots = 0;
+    }
+
+    /**
+     * Sets the offset just past the last record the header counts, before {@link #open()} is called.
+     * Without it, the whole file is taken to be counted records, as it is right after a full save.
+     *
+     * @param end the offset of the end of the counted records
+     */
+    void setEnd(long end) {
+        this.end = end;
+    }
+
+    /**
+     * Opens the file for in-place updates, once the offsets of all live records have been added.
+     * A record appended by a crash before the header count was updated is cut off, so that
+     * the next append neither lands after it nor makes it count.
+     *
+     * @throws IOException if the file cannot be opened
+     */
+    void open() throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer count = ByteBuffer.allocate(Integer.BYTES);
+        channel.read(count, BinaryTaskFormat.COUNT_OFFSET);
+        recordCount = count.flip().getInt();
+        long size = channel.size();
+        if (end < 0 || end > size) {
+            end = size;
+        } else if (end < size) {
+            channel.truncate(end);
+        }
+    }
+
+    /**
+     * Returns the number of deleted records still taking up space in the file.
+     *
+     * @return the tombstone count
+     */
+    int tombstones() {
+        return recordCount - size;
+    }
+
+    /**
+     * Checks whether enough tombstones have built up to be worth a full rewrite.
+     *
+     * @return true if the file should be rewritten
+     */
+    boolean shouldReclaim() {
+        int tombstones = tombstones();
+        return tombstones >= MIN_TOMBSTONES_TO_RECLAIM && tombstones >= size;
+    }
+
+    /**
+     * Rewrites the type byte of a task's record with its current completion status.
+     *
+     * @param index the zero-based position of the task
+     * @param task  the task
+     * @throws IOException if the file cannot be written
+     */
+    void writeStatus(int index, Task task) throws IOException {
+        assert index >= 0 && index < size : "Record index should be in range";
+        writeByte(offsets[slotOf(index)], BinaryTaskFormat.typeByte(task, task.isDone()));
+    }
+
+    /**
+     * Appends a record for a task added to the end of the task list.
+     * The record is written before the header count, so a crash in between leaves the
+     * record past the end of the file as far as readers are concerned, and {@link #open()} drops it.
+     *
+     * @param task the task
+     * @throws IOException if the file cannot be written
+     */
+    void append(Task task) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryTaskFormat.writeRecord(new DataOutputStream(bytes), task, task.isDone());
+        channel.write(ByteBuffer.wrap(bytes.toByteArray()), end);
+
+        addOffset(end);
+        end += bytes.size();
+        recordCount++;
+        ByteBuffer count = ByteBuffer.allocate(Integer.BYTES).putInt(recordCount).flip();
+        channel.write(count, BinaryTaskFormat.COUNT_OFFSET);
+    }
+
+    /**
+     * Turns the record of a removed task into a tombstone.
+     *
+     * @param index the zero-based position the task was removed from
+     * @param task  the removed task
+     * @throws IOException if the file cannot be written
+     */
+    void delete(int index, Task task) throws IOException {
+        assert index >= 0 && index < size : "Record index should be in range";
+        int slot = slotOf(index);
+        byte type = BinaryTaskFormat.typeByte(task, task.isDone());
+        writeByte(offsets[slot], (byte) (type | BinaryTaskFormat.DELETED_BIT));
+        size--;
+        if (slot == slots - 1) {
+            // no Fenwick node past the last slot covers it, so it can simply be dropped
+            slots--;
+            liveCounts[slot + 1] = 0;
+        } else {
+            deletedSlots++;
+            for (int i = slot + 1; i <= slots; i += Integer.lowestOneBit(i)) {
+                liveCounts[i]--;
+            }
+        }
+    }
+
+    /**
+     * Counts the live records in the first {@code count} slots.
+     */
+    private int prefixCount(int count) {
+        int live = 0;
+        for (int i = count; i > 0; i -= Integer.lowestOneBit(i)) {
+            live += liveCounts[i];
+        }
+        return live;
+    }
+
+    /**
+     * Finds the slot holding the record of the task at a position, skipping deleted records.
+     */
+    private int slotOf(int index) {
+        if (deletedSlots == 0) {
+            return index;
+        }
+        int slot = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(slots); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= slots && liveCounts[next] < remaining) {
+                slot = next;
+                remaining -= liveCounts[next];
+            }
+        }
+        return slot; // the 1-based slot after the last skipped one, as a 0-based index
+    }
+
+    private void writeByte(long offset, byte b) throws IOException {
+        channel.write(ByteBuffer.wrap(new byte[] {b}), offset);
+    }
+
+    /**
+     * Closes the file, if open.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
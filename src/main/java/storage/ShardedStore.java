@@ -0,0 +1,323 @@
+package storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import parser.Parser;
+import task.Deadline;
+import task.Event;
+import task.Task;
+import util.ShrekException;
+
+/**
+ * Stores tasks in a directory of small shard files instead of one data file.
+ * Todos share one shard; deadlines and events get one shard per type and calendar month
+ * of their due or start date, so a mutation rewrites only the shard of the task it touched.
+ *
+ * <p>Layout of {@code shrek.txt.shards/}:
+ * <pre>
+ * T.txt, D-2025-12.txt, E-2025-11.txt, ...   one line per task: ID | task's file format
+ * manifest.txt                               E-2025-11.txt | 3 | 2025-12-02   (count, last day covered)
+ * </pre>
+ *
+ * <p>Task IDs increase along the task list, so they record its order across shards. The manifest marks
+ * the directory as complete and summarises each shard; a load lists the directory instead,
+ * so a shard written just before a crash is never missed. Queries, including date queries,
+ * are answered from the task list in memory, so sharding only decides what a save rewrites.
+ *
+ * <p>The tasks of each shard are kept in memory by ID, so a mutation rewrites its shard
+ * without going through the rest of the task list.
+ */
+class ShardedStore {
+    private static final String SEPARATOR = " | ";
+    private static final String SUFFIX = ".txt";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String MANIFEST = "manifest" + SUFFIX;
+    private static final String TODO_SHARD = "T" + SUFFIX;
+    private static final String NO_DAY = "-";
+
+    /**
+     * Number of tasks in a shard and the last day any of them covers.
+     */
+    private static class Summary {
+        private int count;
+        private LocalDate lastDay;
+
+        private void include(Task task) {
+            count++;
+            LocalDate day = lastDayOf(task);
+            if (day != null && (lastDay == null || day.isAfter(lastDay))) {
+                lastDay = day;
+            }
+        }
+    }
+
+    private final File dir;
+    private final TreeMap<String, Summary> summaries = new TreeMap<>();
+    private final Map<String, TreeMap<Long, Task>> members = new HashMap<>();
+    private final Set<String> dirty = new HashSet<>();
+
+    /**
+     * Constructs a ShardedStore next to the specified data file.
+     *
+     * @param file the main data file
+     */
+    ShardedStore(File file) {
+        this.dir = new File(file.getPath() + ".shards");
+    }
+
+    /**
+     * Returns the directory the shards are kept in.
+     *
+     * @return the shard directory
+     */
+    File directory() {
+        return dir;
+    }
+
+    /**
+     * Checks whether the shard directory has been created.
+     *
+     * @return true if the tasks are already stored in shards
+     */
+    boolean exists() {
+        return new File(dir, MANIFEST).exists();
+    }
+
+    /**
+     * Returns the name of the shard a task belongs in.
+     *
+     * @param task the task
+     * @return the shard file name
+     */
+    static String shardOf(Task task) {
+        if (task instanceof Deadline d) {
+            return "D-" + YearMonth.from(d.getBy()) + SUFFIX;
+        } else if (task instanceof Event e) {
+            return "E-" + YearMonth.from(e.getFrom()) + SUFFIX;
+        }
+        return TODO_SHARD;
+    }
+
+    private static LocalDate lastDayOf(Task task) {
+        if (task instanceof Deadline d) {
+            return d.getBy().toLocalDate();
+        } else if (task instanceof Event e) {
+            return e.getTo().toLocalDate();
+        }
+        return null;
+    }
+
+    /**
+     * Loads every shard and merges the tasks back into task list order.
+     *
+     * @return the tasks, in task list order
+     * @throws IOException if a shard cannot be read
+     */
+    ArrayList<Task> load() throws IOException {
+        recover();
+        TreeMap<Long, Task> loaded = new TreeMap<>();
+        for (String name : shardNames()) {
+            readShard(name, loaded);
+        }
+
+        ArrayList<Task> tasks = new ArrayList<>(loaded.values());
+        group(tasks);
+        writeManifest();
+        return tasks;
+    }
+
+    /**
+     * Writes every task, replacing all existing shards.
+     *
+     * @param tasks the tasks, in task list order, all with IDs
+     * @throws IOException if a shard cannot be written
+     */
+    void saveAll(List<Task> tasks) throws IOException {
+        Files.createDirectories(dir.toPath());
+        dirty.addAll(shardNames());
+        group(tasks);
+        dirty.addAll(members.keySet());
+        writeDirty();
+    }
+
+    /**
+     * Records a task appended to the task list and rewrites its shard.
+     *
+     * @param task the task that was added, with its ID
+     * @throws IOException if the shard cannot be written
+     */
+    void added(Task task) throws IOException {
+        String name = shardOf(task);
+        members.computeIfAbsent(name, shard -> new TreeMap<>()).put(task.getId(), task);
+        dirty.add(name);
+        writeDirty();
+    }
+
+    /**
+     * Rewrites the shard of a task whose completion status changed.
+     *
+     * @param task the task that was marked or unmarked
+     * @throws IOException if the shard cannot be written
+     */
+    void marked(Task task) throws IOException {
+        dirty.add(shardOf(task));
+        writeDirty();
+    }
+
+    /**
+     * Records a task removed from the task list and rewrites the shard it was in.
+     *
+     * @param task the task that was removed
+     * @throws IOException if the shard cannot be written
+     */
+    void deleted(Task task) throws IOException {
+        String name = shardOf(task);
+        TreeMap<Long, Task> shard = members.get(name);
+        if (shard != null) {
+            shard.remove(task.getId());
+        }
+        dirty.add(name);
+        writeDirty();
+    }
+
+    /**
+     * Sorts every task into the shard it belongs in, replacing what the shards held before.
+     */
+    private void group(List<Task> tasks) {
+        members.clear();
+        summaries.clear();
+        for (Task task : tasks) {
+            String name = shardOf(task);
+            members.computeIfAbsent(name, shard -> new TreeMap<>()).put(task.getId(), task);
+            summaries.computeIfAbsent(name, shard -> new Summary()).include(task);
+        }
+    }
+
+    /**
+     * Rewrites every dirty shard and then the manifest.
+     */
+    private void writeDirty() throws IOException {
+        for (String name : dirty) {
+            TreeMap<Long, Task> shard = members.get(name);
+            writeShard(name, shard == null ? Collections.emptyList() : shard.values());
+        }
+        dirty.clear();
+        writeManifest();
+    }
+
+    private void writeShard(String name, Collection<Task> tasks) throws IOException {
+        File shard = new File(dir, name);
+        if (tasks.isEmpty()) {
+            Files.deleteIfExists(shard.toPath());
+            summaries.remove(name);
+            members.remove(name);
+            return;
+        }
+
+        Summary summary = new Summary();
+        List<String> lines = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            lines.add(task.getId() + SEPARATOR + task.toFileFormat());
+            summary.include(task);
+        }
+        summaries.put(name, summary);
+        writeAtomically(shard, lines);
+    }
+
+    private void writeManifest() throws IOException {
+        Files.createDirectories(dir.toPath());
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Summary> shard : summaries.entrySet()) {
+            LocalDate lastDay = shard.getValue().lastDay;
+            lines.add(shard.getKey() + SEPARATOR + shard.getValue().count
+                    + SEPARATOR + (lastDay == null ? NO_DAY : lastDay.toString()));
+        }
+        writeAtomically(new File(dir, MANIFEST), lines);
+    }
+
+    private List<String> shardNames() {
+        List<String> shards = new ArrayList<>();
+        String[] names = dir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.endsWith(SUFFIX) && !name.equals(MANIFEST)) {
+                    shards.add(name);
+                }
+            }
+        }
+        return shards;
+    }
+
+    private void readShard(String name, TreeMap<Long, Task> loaded) throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(new File(dir, name), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                int split = line.indexOf(SEPARATOR);
+                try {
+                    if (split < 0) {
+                        throw new ShrekException("Stinky onion (Corrupted task) in shard: " + line);
+                    }
+                    long id = Long.parseLong(line.substring(0, split));
+                    Task task = Parser.parseTaskFromFile(line.substring(split + SEPARATOR.length()));
+                    task.setId(id);
+                    loaded.put(id, task);
+                } catch (ShrekException | NumberFormatException e) {
+                    System.out.println("Skipping corrupted line " + lineNumber + " of " + name + ": "
+                            + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeAtomically(File target, List<String> lines) throws IOException {
+        File tmp = new File(target.getPath() + TMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (String line : lines) {
+                bw.write(line);
+                bw.newLine();
+            }
+            bw.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmp.toPath(), target.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes shards left half-written by a crash; the complete versions are still in place.
+     */
+    private void recover() throws IOException {
+        String[] names = dir.list();
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            if (name.endsWith(TMP_SUFFIX)) {
+                Files.deleteIfExists(new File(dir, name).toPath());
+            }
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package storage;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.List;
 
 import parser.Parser;
+import task.CompactTaskList;
 import task.Task;
+import task.TaskList;
 import util.ShrekException;
 
 /**
@@ -17,7 +20,71 @@ import util.ShrekException;
  * This class manages loading tasks from and saving tasks to a data file.
  */
 public class Storage {
+    /** Default time a write-behind group stays open after its first record. */
+    public static final long DEFAULT_COMMIT_WINDOW_MILLIS = 5;
+    /** Default number of records that closes a write-behind group early. */
+    public static final int DEFAULT_COMMIT_MAX_RECORDS = 1_000;
+
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+
     private final File file;
+    private final Mode mode;
+    private final Compactor compactor;
+    private final RecordFile recordFile;
+    private final ShardedStore shards;
+    private MappedTaskStore mapped;
+    private volatile Journal journal;
+    private GroupCommitFlusher flusher;
+    private int journalNumber;
+    private int baseRecords;
+    private int journalRecords;
+    private long journalBytes;
+    private boolean isBatching;
+    private boolean hasHeldBack;
+    private boolean isLoadFailed;
+
+    /**
+     * Enum representing how mutations are persisted.
+     */
+    public enum Mode {
+        /** Every mutation rewrites the whole data file. */
+        REWRITE,
+        /** Every mutation appends one record to a journal next to the data file. */
+        JOURNAL,
+        /**
+         * Like JOURNAL, but records are queued and written in groups by a background thread.
+         * Use {@link #awaitDurable()} when the records must be on disk.
+         */
+        WRITE_BEHIND,
+        /**
+         * The data file is kept in the binary format and updated in place: marking a task rewrites
+         * one byte, adding appends one record and deleting leaves a tombstone.
+         */
+        RECORD,
+        /**
+         * Tasks are kept in shard files per type and month next to the data file;
+         * every mutation rewrites only the shard it touched. See {@link ShardedStore}.
+         */
+        SHARDED,
+        /**
+         * The data file is kept in the binary format and mapped into memory as the columns of the
+         * task list from {@link #loadCompact()}, so tasks are read and changed in place; saving writes
+         * back the pages that changed. See {@link MappedTaskStore}. Changes to a list from {@link #load()}
+         * are journaled as in JOURNAL mode.
+         */
+        MAPPED
+    }
+
+    /**
+     * Enum representing the format the data file is written in.
+     * Either format is recognised when loading.
+     */
+    public enum Format {
+        /** Human-readable lines such as "D | 0 | return book | 2025-01-01 14:00". */
+        TEXT,
+        /** Compact binary records; see {@link BinaryTaskFormat}. */
+        BINARY
+    }
 
     /**
      * Constructs a Storage object with the specified file path.
@@ -25,48 +92,302 @@ public class Storage {
      * @param filePath the path to the data file for storing tasks
      */
     public Storage(String filePath) {
+        this(filePath, Mode.REWRITE);
+    }
+
+    /**
+     * Constructs a Storage object with the specified file path and persistence mode.
+     *
+     * @param filePath the path to the data file for storing tasks
+     * @param mode     how mutations are written to disk
+     */
+    public Storage(String filePath, Mode mode) {
         this.file = new File(filePath);
+        this.mode = mode;
+        this.compactor = new Compactor(file);
+        this.journalNumber = 1;
+        this.journal = new Journal(compactor.journalFile(journalNumber));
+        this.recordFile = mode == Mode.RECORD ? new RecordFile(file) : null;
+        this.shards = mode == Mode.SHARDED ? new ShardedStore(file) : null;
+        if (mode == Mode.RECORD || mode == Mode.MAPPED) {
+            compactor.setFormat(Format.BINARY);
+        }
+        if (mode == Mode.WRITE_BEHIND) {
+            setCommitWindow(DEFAULT_COMMIT_WINDOW_MILLIS, DEFAULT_COMMIT_MAX_RECORDS);
+        }
+    }
+
+    /**
+     * Sets the format the data file is written in from the next save or compaction on.
+     * Has no effect in RECORD and MAPPED modes, which always use the binary format.
+     *
+     * @param format the data file format
+     */
+    public void setFormat(Format format) {
+        if (mode == Mode.RECORD || mode == Mode.MAPPED) {
+            return;
+        }
+        compactor.awaitIdle();
+        compactor.setFormat(format);
+    }
+
+    /**
+     * Sets how long write-behind groups stay open and how many records close them early.
+     * Has no effect unless the storage is in WRITE_BEHIND mode.
+     *
+     * @param windowMillis how long to keep collecting records after the first one arrives
+     * @param maxRecords   the number of records that triggers a write before the window ends
+     */
+    public void setCommitWindow(long windowMillis, int maxRecords) {
+        if (mode != Mode.WRITE_BEHIND) {
+            return;
+        }
+        if (flusher == null) {
+            flusher = new GroupCommitFlusher(records -> journal.appendAll(records, true), windowMillis, maxRecords);
+        } else {
+            flusher.setWindow(windowMillis, maxRecords);
+        }
     }
 
     /**
      * Loads tasks from the data file into memory.
      * If the file or folder does not exist, it creates them and returns an empty task list.
+     * Any journals left next to the data file are replayed on top of it, and compacted
+     * in the background if replaying them has become expensive.
+     * If the stored tasks cannot be read, the files are moved into a ".corrupt" folder next to
+     * the data file, so that saving the tasks that could be read never overwrites the rest.
      *
      * @return ArrayList&lt;Task&gt; the list of tasks loaded from file
      */
     public ArrayList<Task> load() {
-        // open file, read line by line, parse each into Task objects
-        // return as ArrayList<Task>
         assert file != null : "File should not be null";
         ArrayList<Task> tasks = new ArrayList<>();
+        boolean isRead = false;
         try {
             if (!file.exists()) {
                 file.getParentFile().mkdirs();
                 file.createNewFile();
-                return tasks; // empty task list
             }
+            if (shards != null && shards.exists()) {
+                tasks = loadShards();
+                return tasks;
+            }
+            compactor.awaitIdle();
+            compactor.recover();
+
+            // large text files are memory-mapped and parsed on all cores
+            boolean isBinary = BinaryTaskFormat.isBinary(file);
+            if (isBinary && recordFile != null) {
+                recordFile.reset();
+                tasks = BinaryTaskFormat.read(file, recordFile::addOffset, recordFile::setEnd);
+            } else if (isBinary) {
+                tasks = BinaryTaskFormat.read(file, null, null);
+            } else if (file.length() >= MappedTaskLoader.MIN_PARALLEL_BYTES) {
+                tasks = MappedTaskLoader.load(file);
+            } else {
+                tasks = readLines();
+            }
+            baseRecords = tasks.size();
+
+            replayJournals(tasks);
+            TaskList.assignIds(tasks);
+            for (Task task : tasks) {
+                task.clearDirty();
+            }
+            isRead = true;
 
-            BufferedReader br = new BufferedReader(new FileReader(file));
+            if (shards != null) {
+                shards.saveAll(tasks); // first sharded load: split the data file into shards
+            } else if (recordFile == null) {
+                if (compactor.shouldCompact(journalRecords, journalBytes, baseRecords)) {
+                    startCompaction(tasks);
+                }
+            } else if (isBinary && journalRecords == 0
+                    && BinaryTaskFormat.version(file) == BinaryTaskFormat.VERSION) {
+                recordFile.open();
+            } else {
+                save(tasks); // convert to current binary records, folding in any journals
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading file: " + e.getMessage());
+            if (!isRead) {
+                setAside(tasks);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Loads tasks into a {@link CompactTaskList}, which keeps them in columns rather than as objects.
+     * In MAPPED mode the columns are the data file itself: it is mapped into memory and its records
+     * checked without decoding them, and the list then reads and changes them in place, each change
+     * saved by writing back the pages it touched. A data file in another format or with journals
+     * next to it is first loaded as by {@link #load()} and saved as a binary snapshot, and a file
+     * that fails the checks is set aside as by {@link #load()}. Other modes copy the loaded tasks
+     * into columns on the heap.
+     *
+     * @return the task list
+     */
+    public TaskList loadCompact() {
+        if (mode != Mode.MAPPED) {
+            return new CompactTaskList(load());
+        }
+        try {
+            compactor.awaitIdle();
+            compactor.recover();
+            if (!isMappable()) {
+                ArrayList<Task> tasks = load();
+                if (isLoadFailed) {
+                    return new CompactTaskList(tasks);
+                }
+                save(tasks); // a current binary snapshot with any journals folded in
+            }
+            mapped = MappedTaskStore.open(file);
+        } catch (IOException e) {
+            System.out.println("Error loading file: " + e.getMessage());
+            setAside(new ArrayList<>());
+            if (isLoadFailed) {
+                return new CompactTaskList();
+            }
+            try {
+                mapped = MappedTaskStore.open(file);
+            } catch (IOException again) {
+                System.out.println("Error loading file: " + again.getMessage());
+                isLoadFailed = true;
+                return new CompactTaskList();
+            }
+        }
+        if (mapped.shouldReclaim()) {
+            try {
+                mapped.reclaim(); // only before the list exists, as it moves the slots
+            } catch (IOException e) {
+                System.out.println("Error saving file: " + e.getMessage());
+            }
+        }
+        return new CompactTaskList(mapped);
+    }
+
+    private boolean isMappable() throws IOException {
+        return file.length() >= BinaryTaskFormat.HEADER_BYTES && BinaryTaskFormat.isBinary(file)
+                && BinaryTaskFormat.version(file) == BinaryTaskFormat.VERSION
+                && compactor.journalNumbers().isEmpty();
+    }
+
+    /**
+     * Writes the changes made to the mapped data file back to disk.
+     */
+    private void flushMapped() {
+        try {
+            mapped.flush();
+        } catch (IOException e) {
+            System.out.println("Error saving file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the data file, its journals and its shards into a new ".corrupt" folder after they
+     * failed to load, then saves the tasks that could be read in their place.
+     * If the files cannot be moved, nothing is saved over them for as long as this storage is used.
+     *
+     * @param tasks the tasks that could be read
+     */
+    private void setAside(ArrayList<Task> tasks) {
+        compactor.awaitIdle();
+        File aside = new File(file.getPath() + CORRUPT_SUFFIX);
+        for (int n = 2; aside.exists(); n++) {
+            aside = new File(file.getPath() + CORRUPT_SUFFIX + "." + n);
+        }
+        List<File> unreadable = new ArrayList<>();
+        unreadable.add(file);
+        for (int number : compactor.journalNumbers()) {
+            unreadable.add(compactor.journalFile(number));
+        }
+        if (shards != null) {
+            unreadable.add(shards.directory());
+        }
+
+        try {
+            journal.close();
+            Files.createDirectories(aside.toPath());
+            for (File f : unreadable) {
+                if (f.exists()) {
+                    Files.move(f.toPath(), new File(aside, f.getName()).toPath());
+                }
+            }
+            file.createNewFile();
+        } catch (IOException e) {
+            isLoadFailed = true;
+            System.out.println("Shrek won't save over " + file.getPath() + " until it loads: " + e.getMessage());
+            return;
+        }
+        System.out.println("Moved the unreadable swamp to " + aside.getPath() + "; Shrek carries on with the "
+                + tasks.size() + " task" + (tasks.size() != 1 ? "s" : "") + " it could read.");
+        journalNumber = 1;
+        journal = new Journal(compactor.journalFile(journalNumber));
+        journalRecords = 0;
+        journalBytes = 0;
+        save(tasks);
+    }
+
+    /**
+     * Checks whether saving is refused because the stored tasks failed to load and could not be moved aside.
+     *
+     * @return true if nothing may be written
+     */
+    private boolean refusesToSave() {
+        if (isLoadFailed) {
+            System.out.println("Error saving file: " + file.getPath() + " failed to load, so Shrek won't save over it");
+        }
+        return isLoadFailed;
+    }
+
+    private ArrayList<Task> loadShards() throws IOException {
+        ArrayList<Task> tasks = shards.load();
+        for (Task task : tasks) {
+            task.clearDirty();
+        }
+        return tasks;
+    }
+
+    private ArrayList<Task> readLines() throws IOException {
+        // open file, read line by line, parse each into Task objects
+        ArrayList<Task> tasks = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
             String line;
+            int lineNumber = 0;
             while ((line = br.readLine()) != null) {
+                lineNumber++;
                 try {
                     Task task = Parser.parseTaskFromFile(line);
                     assert task != null : "Parsed task should never be null";
                     tasks.add(task);
                 } catch (ShrekException e) {
-                    System.out.println("Skipping corrupted line: " + e.getMessage());
+                    System.out.println("Skipping corrupted line " + lineNumber + ": " + e.getMessage());
                 }
             }
-            br.close();
-        } catch (IOException e) {
-            System.out.println("Error loading file: " + e.getMessage());
         }
         return tasks;
     }
 
+    private void replayJournals(ArrayList<Task> tasks) throws IOException {
+        journalRecords = 0;
+        journalBytes = 0;
+        journalNumber = 0;
+        for (int number : compactor.journalNumbers()) {
+            Journal replayed = new Journal(compactor.journalFile(number));
+            replayed.replay(tasks);
+            journalRecords += replayed.size();
+            journalBytes += replayed.bytes();
+            journalNumber = number;
+        }
+        journalNumber++;
+        journal = new Journal(compactor.journalFile(journalNumber));
+    }
+
     /**
      * Saves all current tasks into the data file.
-     * Overwrites the file with the latest state of the task list.
+     * Replaces the file with the latest state of the task list and removes the journals.
+     * Once the data file is mapped, the mapped list is the only one saved, by writing back its changes.
      *
      * @param tasks the list of tasks to save
      */
@@ -74,15 +395,292 @@ public class Storage {
         assert tasks != null : "Tasks list should not be null";
         assert file != null : "File should not be null";
 
-        // open file, write tasks line by line in a chosen format
-        // e.g., "T | 1 | read book"
+        // write tasks line by line in a chosen format, e.g., "T | 1 | read book",
+        // then switch the new file in so that a crash never leaves a half-written file
+        if (refusesToSave()) {
+            return;
+        }
+        if (mapped != null) {
+            flushMapped();
+            return;
+        }
+        TaskList.assignIds(tasks);
+        try {
+            if (shards != null) {
+                shards.saveAll(tasks);
+                return;
+            }
+            compactor.awaitIdle();
+            int upTo = rotateJournal();
+            if (recordFile == null) {
+                compactor.writeSnapshot(tasks, copyStatus(tasks), upTo, null);
+            } else {
+                recordFile.reset();
+                compactor.writeSnapshot(tasks, copyStatus(tasks), upTo, recordFile::addOffset);
+                recordFile.open();
+            }
+            baseRecords = tasks.size();
+        } catch (IOException e) {
+            System.out.println("Error saving file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts writing a snapshot of the task list on a background thread.
+     * Once written, it replaces the data file and the journals it contains.
+     * Commands can keep running while the snapshot is written.
+     *
+     * @param tasks the task list to snapshot
+     */
+    public void compact(TaskList tasks) {
+        if (refusesToSave()) {
+            return;
+        }
+        if (mapped != null) {
+            flushMapped(); // deleted records are reclaimed on the next load
+            return;
+        }
         try {
-            BufferedWriter bw = new BufferedWriter(new FileWriter(file));
-            for (Task t : tasks) {
-                bw.write(t.toFileFormat());
-                bw.newLine();
+            startCompaction(tasks.getAllTasks());
+        } catch (IOException e) {
+            System.out.println("Error compacting file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Blocks until any background compaction has finished.
+     */
+    public void awaitCompaction() {
+        compactor.awaitIdle();
+    }
+
+    /**
+     * Starts writing queued write-behind records without waiting for the commit window to end.
+     * Returns immediately; does nothing in the other modes, which write records straight away.
+     */
+    public void flush() {
+        if (flusher != null) {
+            flusher.flush();
+        }
+    }
+
+    /**
+     * Blocks until every change persisted so far is on disk.
+     * In WRITE_BEHIND mode this waits for queued records to be written and synced.
+     *
+     * @throws IOException if queued records could not be written; they stay queued for the next try
+     */
+    public void awaitDurable() throws IOException {
+        if (flusher != null) {
+            flusher.awaitDurable();
+        }
+    }
+
+    private void startCompaction(ArrayList<Task> tasks) throws IOException {
+        int upTo = rotateJournal();
+        List<Task> copy = new ArrayList<>(tasks);
+        compactor.startCompaction(copy, copyStatus(copy), upTo);
+        baseRecords = copy.size();
+    }
+
+    /**
+     * Closes the current journal and directs further records to a new one.
+     *
+     * @return the number of the journal that was closed
+     * @throws IOException if the journal cannot be closed
+     */
+    private int rotateJournal() throws IOException {
+        awaitDurable();
+        journal.close();
+        int closed = journalNumber;
+        journalNumber++;
+        journal = new Journal(compactor.journalFile(journalNumber));
+        journalRecords = 0;
+        journalBytes = 0;
+        return closed;
+    }
+
+    private static boolean[] copyStatus(List<Task> tasks) {
+        boolean[] isDone = new boolean[tasks.size()];
+        for (int i = 0; i < isDone.length; i++) {
+            isDone[i] = tasks.get(i).isDone();
+        }
+        return isDone;
+    }
+
+    /**
+     * Holds back persisting changes until {@link #checkpoint} or {@link #endBatch}, which save
+     * the whole task list at once. Lets a script of many commands cost a single save.
+     */
+    public void beginBatch() {
+        isBatching = true;
+    }
+
+    /**
+     * Saves the whole task list if any change has been held back since the batch began
+     * or since the last checkpoint.
+     *
+     * @param tasks the task list to save
+     */
+    public void checkpoint(TaskList tasks) {
+        if (hasHeldBack) {
+            hasHeldBack = false;
+            if (mapped != null) {
+                flushMapped();
+            } else {
+                save(tasks.getAllTasks());
+            }
+        }
+    }
+
+    /**
+     * Saves any changes held back and goes back to persisting each change as it happens.
+     *
+     * @param tasks the task list to save
+     */
+    public void endBatch(TaskList tasks) {
+        checkpoint(tasks);
+        isBatching = false;
+    }
+
+    /**
+     * Notes a change that a batch holds back, if one is running.
+     *
+     * @return true if the change should not be persisted now
+     */
+    private boolean holdBack() {
+        hasHeldBack |= isBatching;
+        return isBatching;
+    }
+
+    /**
+     * Persists a task that was just appended to the task list.
+     *
+     * @param tasks the task list after the addition
+     * @param task  the task that was added
+     */
+    public void saveAdded(TaskList tasks, Task task) {
+        if (holdBack() || refusesToSave()) {
+            return;
+        }
+        if (mapped != null) {
+            flushMapped();
+            return;
+        }
+        if (shards != null) {
+            try {
+                shards.added(task);
+            } catch (IOException e) {
+                System.out.println("Error saving file: " + e.getMessage());
+            }
+            return;
+        }
+        if (recordFile == null) {
+            persist(tasks, Journal.addRecord(task));
+            return;
+        }
+
+        try {
+            recordFile.append(task);
+        } catch (IOException e) {
+            System.out.println("Error saving file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Persists a change to the completion status of a task.
+     * Does nothing if the task's status is already on disk.
+     *
+     * @param tasks the task list containing the task
+     * @param index the zero-based position of the task
+     * @param task  the task that was marked or unmarked
+     */
+    public void saveMarked(TaskList tasks, int index, Task task) {
+        if (!task.isDirty()) {
+            return;
+        }
+        if (holdBack()) {
+            task.clearDirty(); // the checkpoint writes every status
+            return;
+        }
+        if (refusesToSave()) {
+            return;
+        }
+        if (mapped != null) {
+            flushMapped();
+        } else if (shards != null) {
+            try {
+                shards.marked(task);
+            } catch (IOException e) {
+                System.out.println("Error saving file: " + e.getMessage());
+            }
+        } else if (recordFile != null) {
+            try {
+                recordFile.writeStatus(index, task);
+            } catch (IOException e) {
+                System.out.println("Error saving file: " + e.getMessage());
+            }
+        } else {
+            persist(tasks, Journal.markRecord(index, task.isDone()));
+        }
+        task.clearDirty();
+    }
+
+    /**
+     * Persists the removal of a task.
+     *
+     * @param tasks the task list after the removal
+     * @param index the zero-based position the task was removed from
+     * @param task  the task that was removed
+     */
+    public void saveDeleted(TaskList tasks, int index, Task task) {
+        if (holdBack() || refusesToSave()) {
+            return;
+        }
+        if (mapped != null) {
+            flushMapped();
+            return;
+        }
+        if (shards != null) {
+            try {
+                shards.deleted(task);
+            } catch (IOException e) {
+                System.out.println("Error saving file: " + e.getMessage());
+            }
+            return;
+        }
+        if (recordFile == null) {
+            persist(tasks, Journal.deleteRecord(index));
+            return;
+        }
+
+        try {
+            recordFile.delete(index, task);
+        } catch (IOException e) {
+            System.out.println("Error saving file: " + e.getMessage());
+        }
+        if (recordFile.shouldReclaim()) {
+            save(tasks.getAllTasks());
+        }
+    }
+
+    private void persist(TaskList tasks, String record) {
+        if (mode == Mode.REWRITE) {
+            save(tasks.getAllTasks());
+            return;
+        }
+
+        try {
+            if (flusher != null) {
+                flusher.enqueue(record);
+            } else {
+                journal.append(record);
+            }
+            journalRecords++;
+            journalBytes += record.length() + 1;
+            if (compactor.shouldCompact(journalRecords, journalBytes, baseRecords)) {
+                startCompaction(tasks.getAllTasks());
             }
-            bw.close();
         } catch (IOException e) {
             System.out.println("Error saving file: " + e.getMessage());
         }
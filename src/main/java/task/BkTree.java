@@ -0,0 +1,124 @@
+package task;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Burkhard-Keller tree of words under Levenshtein distance, for finding every word
+ * within a small edit distance of a misspelled one.
+ *
+ * <p>Each child hangs off its parent by its distance to the parent's word. By the triangle
+ * inequality, a word within {@code d} of the target can only sit under children whose edge is
+ * within {@code d} of the target's distance to the parent, so a search visits a small part
+ * of the tree. Words cannot be taken out; callers skip words they no longer use and rebuild
+ * the tree once too many have built up.
+ */
+class BkTree {
+    /**
+     * A word and its children, keyed by their distance to it.
+     */
+    private static class Node {
+        private final String word;
+        private final Map<Integer, Node> children = new HashMap<>();
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    /**
+     * Adds a word, unless it is already in the tree.
+     *
+     * @param word the word
+     */
+    void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Returns the number of distinct words ever added.
+     *
+     * @return the word count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Reports every word within a maximum edit distance of the target.
+     *
+     * @param target      the word to look for
+     * @param maxDistance the largest edit distance to report
+     * @param onMatch     receives each matching word and its distance
+     */
+    void search(String target, int maxDistance, ObjIntConsumer<String> onMatch) {
+        if (root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(target, node.word);
+            if (distance <= maxDistance) {
+                onMatch.accept(node.word, distance);
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the Levenshtein distance between two words: the fewest single-character
+     * insertions, deletions and substitutions turning one into the other.
+     *
+     * @param a the first word
+     * @param b the second word
+     * @return the edit distance
+     */
+    static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,134 @@
+package task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Ranks task descriptions against a query with Okapi BM25.
+ *
+ * <p>A description scores for every query word it contains, more for words repeated in it and for
+ * words few descriptions use, and less for long descriptions. The index keeps how often each word
+ * occurs in each description along with the description lengths, updating them as tasks come and go,
+ * so a query only touches the descriptions containing its words. The best {@code k} are picked
+ * with a heap of size {@code k} rather than by sorting every match.
+ */
+class Bm25Index {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * A task and its score, ordered from worst to best so that a heap drops the worst first.
+     * Ties go to the earlier task.
+     */
+    private static class Scored {
+        private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble((Scored s) -> s.score)
+                .thenComparing(s -> -s.id);
+
+        private final long id;
+        private final double score;
+
+        Scored(long id, double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private final Map<String, Map<Long, Integer>> frequencies = new HashMap<>();
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * Adds the words of a task's description to the index.
+     *
+     * @param task the task, which must already have its ID
+     */
+    void add(Task task) {
+        int length = 0;
+        for (Map.Entry<String, Integer> count : counts(task.getDescription()).entrySet()) {
+            frequencies.computeIfAbsent(count.getKey(), w -> new HashMap<>()).put(task.getId(), count.getValue());
+            length += count.getValue();
+        }
+        lengths.put(task.getId(), length);
+        totalLength += length;
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task the task
+     */
+    void remove(Task task) {
+        Integer length = lengths.remove(task.getId());
+        if (length == null) {
+            return;
+        }
+        totalLength -= length;
+        for (String word : counts(task.getDescription()).keySet()) {
+            Map<Long, Integer> posting = frequencies.get(word);
+            posting.remove(task.getId());
+            if (posting.isEmpty()) {
+                frequencies.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the best-scoring tasks for a query.
+     *
+     * @param query one or more words separated by whitespace, matched whole and ignoring case
+     * @param limit the largest number of IDs to return
+     * @return the IDs of the tasks containing any query word, best first
+     */
+    List<Long> search(String query, int limit) {
+        if (lengths.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        double averageLength = Math.max(1.0, (double) totalLength / lengths.size());
+        Map<Long, Double> scores = new HashMap<>();
+        for (String word : KeywordIndex.words(query)) {
+            Map<Long, Integer> posting = frequencies.get(word);
+            if (posting == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (lengths.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+            for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                double tf = entry.getValue();
+                double norm = K1 * (1 - B + B * lengths.get(entry.getKey()) / averageLength);
+                scores.merge(entry.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+            }
+        }
+
+        PriorityQueue<Scored> best = new PriorityQueue<>(Scored.WORST_FIRST);
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            Scored scored = new Scored(score.getKey(), score.getValue());
+            if (best.size() < limit) {
+                best.add(scored);
+            } else if (Scored.WORST_FIRST.compare(scored, best.peek()) > 0) {
+                best.poll();
+                best.add(scored);
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ids.add(best.poll().id);
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private static Map<String, Integer> counts(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String word : text.toLowerCase().split("\\s+")) {
+            if (!word.isEmpty()) {
+                counts.merge(word, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+}
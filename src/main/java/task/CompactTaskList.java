@@ -0,0 +1,343 @@
+package task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+import instruction.SortInstruction.SortCriteria;
+import util.ShrekException;
+
+/**
+ * Task list that keeps its tasks in the columns of a {@link TaskStore} rather than as objects,
+ * so that a list of millions of tasks fits in a modest heap. The columns are a {@link CompactTaskStore}
+ * on the heap unless a store is given, such as one reading the data file in place.
+ *
+ * <p>The tasks it returns are views built from the columns on demand: each call returns a new object,
+ * and a task's status only changes through {@link #mark}. Positions map to slots through {@link LiveSlots}
+ * and IDs by the store, as IDs increase along the slots. Deleted slots are squeezed out of the store
+ * once they outnumber the live ones, if the store can do that as it goes.
+ *
+ * <p>Nothing holds a task object for long. Date queries scan the time columns and sorted listings sort
+ * views of every task, each time they are asked. Find and ranked search keep a {@link KeywordIndex} and a
+ * {@link Bm25Index}, which hold only words and IDs, from their first use on. Duplicate checks chain slots
+ * by hash in two int arrays, built on the first check.
+ */
+public class CompactTaskList extends TaskList {
+    private static final int NO_SLOT = -1;
+
+    private final TaskStore store;
+    private final LiveSlots liveSlots = new LiveSlots();
+    private KeywordIndex keywordIndex;
+    private Bm25Index bm25Index;
+    private int[] hashHeads; // per bucket, the last slot with that hash bucket, or NO_SLOT
+    private int[] hashNext; // per slot, the previous slot in its bucket, or NO_SLOT
+    private long nextId;
+
+    /**
+     * Constructs an empty CompactTaskList.
+     */
+    public CompactTaskList() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Constructs a CompactTaskList with existing tasks, which are copied into the columns.
+     * Tasks without an ID are given one, continuing from the task before them. The list is taken over,
+     * as by {@link TaskList#TaskList(ArrayList)}, and emptied as it is copied, so the task objects
+     * can be collected while the rest are still being copied.
+     *
+     * @param tasks the initial list of tasks
+     */
+    public CompactTaskList(ArrayList<Task> tasks) {
+        store = new CompactTaskStore();
+        nextId = assignIds(tasks);
+        for (int i = 0; i < tasks.size(); i++) {
+            store.add(tasks.get(i));
+            tasks.set(i, null);
+        }
+        tasks.clear();
+        liveSlots.reset(store.slots(), slot -> true);
+    }
+
+    /**
+     * Constructs a CompactTaskList over the tasks already in a store, which it then changes as tasks
+     * are added, marked and removed.
+     *
+     * @param store the store
+     */
+    public CompactTaskList(TaskStore store) {
+        this.store = store;
+        int last = store.slots() - 1;
+        nextId = last < 0 ? 1 : store.getId(last) + 1;
+        liveSlots.reset(store.slots(), slot -> !store.isDeleted(slot));
+    }
+
+    @Override
+    public void add(Task task) {
+        task.setId(nextId++);
+        int slot = store.add(task);
+        liveSlots.append();
+        if (keywordIndex != null) {
+            keywordIndex.add(task);
+        }
+        if (bm25Index != null) {
+            bm25Index.add(task);
+        }
+        if (hashHeads != null) {
+            if (store.slots() * 2 > hashHeads.length) {
+                hashHeads = null; // rebuilt larger by the next check
+            } else {
+                link(slot, task.hashCode());
+            }
+        }
+    }
+
+    @Override
+    public Task get(int index) throws ShrekException {
+        if (index < 0 || index >= size()) {
+            throw missingIndex(index, size());
+        }
+        return store.get(liveSlots.slotOf(index));
+    }
+
+    @Override
+    public int indexOf(long id) throws ShrekException {
+        int slot = store.slotOfId(id);
+        if (slot == NO_SLOT) {
+            throw missingId(id);
+        }
+        return liveSlots.prefixCount(slot);
+    }
+
+    @Override
+    public Task mark(int index, boolean isDone) throws ShrekException {
+        Task task = get(index);
+        if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsNotDone();
+        }
+        store.setDone(liveSlots.slotOf(index), isDone);
+        return task;
+    }
+
+    @Override
+    public Task remove(int index) throws ShrekException {
+        if (index < 0 || index >= size()) {
+            throw missingToRemove(index, size());
+        }
+
+        int slot = liveSlots.slotOf(index);
+        Task removed = store.get(slot);
+        store.remove(slot);
+        liveSlots.kill(slot);
+        if (keywordIndex != null) {
+            keywordIndex.remove(removed);
+        }
+        if (bm25Index != null) {
+            bm25Index.remove(removed);
+        }
+        if (liveSlots.tombstones() >= MIN_TOMBSTONES_TO_COMPACT && liveSlots.tombstones() > size()
+                && store.compact()) {
+            liveSlots.reset(store.slots(), s -> true);
+            hashHeads = null; // the slots have moved
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean hasDuplicate(Task newTask) {
+        if (hashHeads == null) {
+            rebuildHashes();
+        }
+        int hash = newTask.hashCode();
+        for (int slot = hashHeads[bucketOf(hash)]; slot != NO_SLOT; slot = hashNext[slot]) {
+            if (!store.isDeleted(slot) && store.get(slot).equals(newTask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rebuildHashes() {
+        int capacity = 16;
+        while (capacity < store.slots() * 4) {
+            capacity <<= 1;
+        }
+        hashHeads = new int[capacity];
+        Arrays.fill(hashHeads, NO_SLOT);
+        hashNext = new int[Math.max(16, store.slots())];
+        for (int slot = 0; slot < store.slots(); slot++) {
+            if (!store.isDeleted(slot)) {
+                link(slot, store.get(slot).hashCode());
+            }
+        }
+    }
+
+    private void link(int slot, int hash) {
+        if (slot >= hashNext.length) {
+            hashNext = Arrays.copyOf(hashNext, hashNext.length * 2);
+        }
+        int bucket = bucketOf(hash);
+        hashNext[slot] = hashHeads[bucket];
+        hashHeads[bucket] = slot;
+    }
+
+    private int bucketOf(int hash) {
+        return (hash ^ (hash >>> 16)) & (hashHeads.length - 1);
+    }
+
+    /**
+     * Returns the deadlines due and the events running between two dates, inclusive,
+     * in chronological order of their due or start times. Scans the time columns.
+     *
+     * @param first the first day of the range
+     * @param last  the last day of the range
+     * @return the matching tasks
+     */
+    @Override
+    public List<Task> getTasksBetween(LocalDate first, LocalDate last) {
+        long start = DateTimeCodec.toEpochMinute(first.atStartOfDay());
+        long end = DateTimeCodec.toEpochMinute(last.plusDays(1).atStartOfDay());
+        List<Integer> matches = new ArrayList<>();
+        for (int slot = 0; slot < store.slots(); slot++) {
+            if (store.isDeleted(slot)) {
+                continue;
+            }
+            byte type = store.type(slot);
+            boolean isDue = type == TaskStore.DEADLINE
+                    && store.start(slot) >= start && store.start(slot) < end;
+            boolean isRunning = type == TaskStore.EVENT
+                    && store.start(slot) < end && store.end(slot) >= start;
+            if (isDue || isRunning) {
+                matches.add(slot);
+            }
+        }
+        matches.sort(chronological());
+        return views(matches);
+    }
+
+    /**
+     * Returns the undone deadlines due and events still running at or after a time,
+     * soonest first. Scans the time columns, keeping the soonest {@code count} so far.
+     *
+     * @param now   the time to look ahead from
+     * @param count the largest number of tasks to return
+     * @return up to {@code count} upcoming tasks, ordered by due or start time
+     */
+    @Override
+    public List<Task> getUpcoming(LocalDateTime now, int count) {
+        long from = DateTimeCodec.toEpochMinute(now);
+        if (DateTimeCodec.fromEpochMinute(from).isBefore(now)) {
+            from++; // times are whole minutes, so the first one not before now
+        }
+        PriorityQueue<Integer> soonest = new PriorityQueue<>(chronological().reversed());
+        for (int slot = 0; slot < store.slots() && count > 0; slot++) {
+            if (store.isDeleted(slot) || store.isDone(slot)) {
+                continue;
+            }
+            byte type = store.type(slot);
+            boolean isAhead = type == TaskStore.DEADLINE && store.start(slot) >= from
+                    || type == TaskStore.EVENT && store.end(slot) >= from;
+            if (isAhead) {
+                soonest.add(slot);
+                if (soonest.size() > count) {
+                    soonest.poll();
+                }
+            }
+        }
+        List<Integer> matches = new ArrayList<>(soonest);
+        matches.sort(chronological());
+        return views(matches);
+    }
+
+    /**
+     * Orders slots by due or start time, then by slot, which is list order.
+     */
+    private Comparator<Integer> chronological() {
+        return Comparator.<Integer>comparingLong(store::start).thenComparingInt(slot -> slot);
+    }
+
+    @Override
+    public List<Task> find(String query) {
+        if (keywordIndex == null) {
+            keywordIndex = new KeywordIndex();
+            forEachLive(keywordIndex::add);
+        }
+        return viewsOfIds(keywordIndex.find(query));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        if (bm25Index == null) {
+            bm25Index = new Bm25Index();
+            forEachLive(bm25Index::add);
+        }
+        return viewsOfIds(bm25Index.search(query, limit));
+    }
+
+    /**
+     * Returns the tasks sorted by some criteria. Tasks that tie keep their list order.
+     * Sorts views of every task, and keeps none of them once returned.
+     *
+     * @param criteria the criteria to sort by
+     * @return a new list of the tasks, sorted
+     */
+    @Override
+    public ArrayList<Task> getSorted(SortCriteria criteria) {
+        SortedView view = new SortedView(criteria);
+        forEachLive(view::add);
+        return view.toList();
+    }
+
+    @Override
+    public int size() {
+        return liveSlots.slots() - liveSlots.tombstones();
+    }
+
+    /**
+     * Returns views of all tasks, in order. Changing the list returned does not change this one.
+     *
+     * @return a new list of the tasks
+     */
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return liveTasks();
+    }
+
+    @Override
+    ArrayList<Task> liveTasks() {
+        ArrayList<Task> live = new ArrayList<>(size());
+        forEachLive(live::add);
+        return live;
+    }
+
+    private void forEachLive(Consumer<Task> action) {
+        for (int slot = 0; slot < store.slots(); slot++) {
+            if (!store.isDeleted(slot)) {
+                action.accept(store.get(slot));
+            }
+        }
+    }
+
+    private List<Task> views(List<Integer> slots) {
+        List<Task> tasks = new ArrayList<>(slots.size());
+        for (int slot : slots) {
+            tasks.add(store.get(slot));
+        }
+        return tasks;
+    }
+
+    private List<Task> viewsOfIds(List<Long> ids) {
+        List<Task> tasks = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            tasks.add(store.get(store.slotOfId(id)));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,177 @@
+package task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import util.ShrekException;
+
+/**
+ * Heap column store behind {@link CompactTaskList}, holding tasks in parallel primitive arrays
+ * rather than as objects.
+ *
+ * <p>Each slot has a type byte, an ID, and start and end epoch minutes (unused for todos, end unused
+ * for deadlines); completion and deletion are bits in two {@link BitSet}s. Descriptions are UTF-8 bytes
+ * appended to one shared arena, slot {@code i} spanning {@code offsets[i]} to {@code offsets[i + 1]}.
+ * A task then costs about 30 bytes plus its text instead of several objects, and {@link #get} builds
+ * a {@link Task} only when one is asked for. Times are kept to the minute, as they are written.
+ *
+ * <p>Deleting a slot only sets its bit; {@link #compact} squeezes deleted slots and their text out.
+ */
+class CompactTaskStore implements TaskStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+    private byte[] arena = new byte[INITIAL_CAPACITY * 16];
+    private BitSet done = new BitSet();
+    private BitSet deleted = new BitSet();
+    private int slots;
+
+    @Override
+    public int add(Task task) {
+        byte[] text = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(slots + 1, offsets[slots] + text.length);
+
+        int slot = slots++;
+        ids[slot] = task.getId();
+        if (task instanceof Deadline d) {
+            types[slot] = DEADLINE;
+            starts[slot] = DateTimeCodec.toEpochMinute(d.getBy());
+        } else if (task instanceof Event e) {
+            types[slot] = EVENT;
+            starts[slot] = DateTimeCodec.toEpochMinute(e.getFrom());
+            ends[slot] = DateTimeCodec.toEpochMinute(e.getTo());
+        } else {
+            types[slot] = TODO;
+        }
+        done.set(slot, task.isDone());
+        System.arraycopy(text, 0, arena, offsets[slot], text.length);
+        offsets[slot + 1] = offsets[slot] + text.length;
+        return slot;
+    }
+
+    @Override
+    public Task get(int slot) {
+        checkSlot(slot);
+        String description = new String(arena, offsets[slot], offsets[slot + 1] - offsets[slot],
+                StandardCharsets.UTF_8);
+        Task task;
+        try {
+            task = switch (types[slot]) {
+            case DEADLINE -> new Deadline(description, DateTimeCodec.fromEpochMinute(starts[slot]));
+            case EVENT -> new Event(description, DateTimeCodec.fromEpochMinute(starts[slot]),
+                    DateTimeCodec.fromEpochMinute(ends[slot]));
+            default -> new Todo(description);
+            };
+        } catch (ShrekException e) {
+            throw new IllegalStateException("Stored event ends before it starts: " + description);
+        }
+        task.setId(ids[slot]);
+        if (done.get(slot)) {
+            task.markAsDone();
+        }
+        task.clearDirty();
+        return task;
+    }
+
+    @Override
+    public byte type(int slot) {
+        return types[slot];
+    }
+
+    @Override
+    public long start(int slot) {
+        return starts[slot];
+    }
+
+    @Override
+    public long end(int slot) {
+        return ends[slot];
+    }
+
+    @Override
+    public long getId(int slot) {
+        return ids[slot];
+    }
+
+    @Override
+    public int slotOfId(long id) {
+        int slot = Arrays.binarySearch(ids, 0, slots, id);
+        return slot >= 0 && !deleted.get(slot) ? slot : -1;
+    }
+
+    @Override
+    public boolean isDone(int slot) {
+        return done.get(slot);
+    }
+
+    @Override
+    public void setDone(int slot, boolean isDone) {
+        checkSlot(slot);
+        done.set(slot, isDone);
+    }
+
+    @Override
+    public boolean isDeleted(int slot) {
+        return deleted.get(slot);
+    }
+
+    @Override
+    public void remove(int slot) {
+        checkSlot(slot);
+        deleted.set(slot);
+    }
+
+    @Override
+    public int slots() {
+        return slots;
+    }
+
+    @Override
+    public boolean compact() {
+        int kept = 0;
+        int textEnd = 0;
+        BitSet keptDone = new BitSet();
+        for (int slot = deleted.nextClearBit(0); slot < slots; slot = deleted.nextClearBit(slot + 1)) {
+            int length = offsets[slot + 1] - offsets[slot];
+            System.arraycopy(arena, offsets[slot], arena, textEnd, length);
+            types[kept] = types[slot];
+            ids[kept] = ids[slot];
+            starts[kept] = starts[slot];
+            ends[kept] = ends[slot];
+            keptDone.set(kept, done.get(slot));
+            offsets[kept] = textEnd;
+            textEnd += length;
+            kept++;
+        }
+        offsets[kept] = textEnd;
+        slots = kept;
+        done = keptDone;
+        deleted = new BitSet();
+        return true;
+    }
+
+    private void ensureCapacity(int slotCount, int arenaBytes) {
+        if (slotCount > types.length) {
+            int capacity = Math.max(slotCount, types.length * 2);
+            types = Arrays.copyOf(types, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+        }
+        if (arenaBytes > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arenaBytes, arena.length * 2));
+        }
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= slots || deleted.get(slot)) {
+            throw new IndexOutOfBoundsException("No task in slot " + slot);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import instruction.SortInstruction.SortCriteria;
+import util.ShrekException;
+
+/**
+ * Task list that can be shared between threads.
+ *
+ * <p>Changes take the write lock, one at a time, so every change happens at a single point
+ * and is seen by everything after it. {@link #update} holds the lock across several steps,
+ * e.g. finding a task and then deleting and saving it; queries made inside an update see the list as it is.
+ * A query that returns tasks along with their positions reads both from the same version.
+ *
+ * <p>Every other query is served from an immutable version of the list, made once after each change
+ * by the first reader to ask, so readers never wait for each other. A version holds a copy of the
+ * task order; positions, IDs and the size come straight from that copy. The first date query, find,
+ * search, sort or duplicate check on a version builds the index it needs for that version; later ones
+ * only read it. Tasks themselves are shared between versions: their descriptions, times and IDs
+ * never change once they are in the list, and their completion status is volatile.
+ *
+ * <p>The lock is reentrant, so an update may call any other method of the list.
+ */
+public class ConcurrentTaskList extends TaskList {
+    /**
+     * Steps run together under the write lock.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Update<T> {
+        /**
+         * Runs the steps.
+         *
+         * @param tasks the task list
+         * @return the result
+         * @throws ShrekException if a step fails
+         */
+        T apply(TaskList tasks) throws ShrekException;
+    }
+
+    /**
+     * Indexes a version builds on first use; the sorted views are keyed by their {@link SortCriteria}.
+     */
+    private enum Index {
+        DUPLICATES, TIME, KEYWORDS, RANKING
+    }
+
+    /**
+     * The tasks as of one change. Never modified once its indexes are built.
+     */
+    private static final class Version {
+        private final List<Task> tasks;
+        private final Set<Object> built = ConcurrentHashMap.newKeySet();
+        private volatile TaskList indexed;
+
+        Version(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        /**
+         * Runs a query on an indexed list of this version's tasks. The first query of each kind builds
+         * its index while holding this version's monitor; later ones run without it.
+         */
+        <T> T query(Object index, Function<TaskList, T> query) {
+            TaskList list = indexed;
+            if (list != null && built.contains(index)) {
+                return query.apply(list);
+            }
+            synchronized (this) {
+                if (indexed == null) {
+                    indexed = new TaskList(new ArrayList<>(tasks));
+                }
+                T result = query.apply(indexed);
+                built.add(index);
+                return result;
+            }
+        }
+
+        /**
+         * Finds a task's position by binary search, since IDs increase along the list.
+         */
+        int indexOf(long id) throws ShrekException {
+            int low = 0;
+            int high = tasks.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midId = tasks.get(mid).getId();
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            throw TaskList.missingId(id);
+        }
+
+        /**
+         * Numbers tasks of this version by their positions in it.
+         */
+        Matches numbered(List<Task> matches) throws ShrekException {
+            List<Integer> indices = new ArrayList<>(matches.size());
+            for (Task match : matches) {
+                indices.add(indexOf(match.getId()));
+            }
+            return new Matches(matches, indices);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    private volatile Version version;
+
+    /**
+     * Constructs an empty ConcurrentTaskList.
+     */
+    public ConcurrentTaskList() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Constructs a ConcurrentTaskList with existing tasks.
+     *
+     * @param tasks the initial list of tasks
+     */
+    public ConcurrentTaskList(ArrayList<Task> tasks) {
+        super(tasks);
+    }
+
+    /**
+     * Runs several steps as one change, with no other change or query in between.
+     *
+     * @param update the steps
+     * @param <T>    the type of the result
+     * @return the result of the steps
+     * @throws ShrekException if a step fails; the steps before it stay done
+     */
+    public <T> T update(Update<T> update) throws ShrekException {
+        writeLock.lock();
+        try {
+            return update.apply(this);
+        } finally {
+            version = null;
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the version of the list as of the latest change, without locking
+     * unless the version has to be made.
+     */
+    private Version version() {
+        Version current = version;
+        if (current != null) {
+            return current;
+        }
+        readLock.lock();
+        try {
+            current = version;
+            if (current == null) {
+                current = new Version(List.copyOf(liveTasks()));
+                version = current;
+            }
+            return current;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether the calling thread is in the middle of a change, and so must see the list as it is.
+     */
+    private boolean isUpdating() {
+        return lock.isWriteLockedByCurrentThread();
+    }
+
+    /**
+     * Returns an immutable copy of the tasks as of the latest change, without locking
+     * unless the copy has to be made.
+     *
+     * @return the tasks, in order
+     */
+    public List<Task> snapshot() {
+        return version().tasks;
+    }
+
+    @Override
+    public void add(Task task) {
+        writeLock.lock();
+        try {
+            super.add(task);
+        } finally {
+            version = null;
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Task mark(int index, boolean isDone) throws ShrekException {
+        return update(tasks -> super.mark(index, isDone));
+    }
+
+    @Override
+    public Task remove(int index) throws ShrekException {
+        return update(tasks -> super.remove(index));
+    }
+
+    /**
+     * Returns a copy of the tasks as of the latest change; changing it does not change the list.
+     *
+     * @return a new list of the tasks
+     */
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return isUpdating() ? super.getAllTasks() : new ArrayList<>(snapshot());
+    }
+
+    @Override
+    public Task get(int index) throws ShrekException {
+        if (isUpdating()) {
+            return super.get(index);
+        }
+        List<Task> tasks = snapshot();
+        if (index < 0 || index >= tasks.size()) {
+            throw TaskList.missingIndex(index, tasks.size());
+        }
+        return tasks.get(index);
+    }
+
+    @Override
+    public int indexOf(long id) throws ShrekException {
+        return isUpdating() ? super.indexOf(id) : version().indexOf(id);
+    }
+
+    @Override
+    public boolean hasDuplicate(Task newTask) {
+        if (isUpdating()) {
+            return super.hasDuplicate(newTask);
+        }
+        return version().query(Index.DUPLICATES, tasks -> tasks.hasDuplicate(newTask));
+    }
+
+    @Override
+    public List<Task> getTasksBetween(LocalDate first, LocalDate last) {
+        if (isUpdating()) {
+            return super.getTasksBetween(first, last);
+        }
+        return version().query(Index.TIME, tasks -> tasks.getTasksBetween(first, last));
+    }
+
+    @Override
+    public List<Task> getUpcoming(LocalDateTime now, int count) {
+        if (isUpdating()) {
+            return super.getUpcoming(now, count);
+        }
+        return version().query(Index.TIME, tasks -> tasks.getUpcoming(now, count));
+    }
+
+    @Override
+    public List<Task> find(String query) {
+        if (isUpdating()) {
+            return super.find(query);
+        }
+        return version().query(Index.KEYWORDS, tasks -> tasks.find(query));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        if (isUpdating()) {
+            return super.search(query, limit);
+        }
+        return version().query(Index.RANKING, tasks -> tasks.search(query, limit));
+    }
+
+    @Override
+    public Matches findNumbered(String query) throws ShrekException {
+        if (isUpdating()) {
+            return super.findNumbered(query);
+        }
+        Version current = version();
+        return current.numbered(current.query(Index.KEYWORDS, tasks -> tasks.find(query)));
+    }
+
+    @Override
+    public Matches searchNumbered(String query, int limit) throws ShrekException {
+        if (isUpdating()) {
+            return super.searchNumbered(query, limit);
+        }
+        Version current = version();
+        return current.numbered(current.query(Index.RANKING, tasks -> tasks.search(query, limit)));
+    }
+
+    @Override
+    public ArrayList<Task> getSorted(SortCriteria criteria) {
+        if (isUpdating()) {
+            return super.getSorted(criteria);
+        }
+        return version().query(criteria, tasks -> tasks.getSorted(criteria));
+    }
+
+    @Override
+    public int size() {
+        return isUpdating() ? super.size() : snapshot().size();
+    }
+}
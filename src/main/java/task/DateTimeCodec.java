@@ -0,0 +1,196 @@
+package task;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Reads and writes the date and time layouts tasks use: "yyyy-MM-dd HH:mm" for input and storage,
+ * and "MMM d yyyy, h:mma" for display.
+ *
+ * <p>Well-formed times with four-digit years are parsed and formatted with digit arithmetic; anything
+ * else falls back to {@link DateTimeFormatter}, so results and errors are the same as with the
+ * formatter alone. Display strings are kept in a small cache, since lists show the same few
+ * dates over and over.
+ */
+public final class DateTimeCodec {
+    /** The layout times are typed and stored in. */
+    public static final String PATTERN = "yyyy-MM-dd HH:mm";
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern(PATTERN);
+    private static final DateTimeFormatter DISPLAY_FORMAT =
+            DateTimeFormatter.ofPattern("MMM d yyyy, h:mma").withLocale(Locale.ENGLISH);
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+    private static final int LENGTH = PATTERN.length();
+    private static final int DISPLAY_CACHE_SIZE = 256; // a power of two
+
+    private static final Rendered[] DISPLAY_CACHE = new Rendered[DISPLAY_CACHE_SIZE];
+
+    /**
+     * A time and its display string. Immutable, so threads can share entries without locking.
+     */
+    private static final class Rendered {
+        private final LocalDateTime time;
+        private final String text;
+
+        Rendered(LocalDateTime time, String text) {
+            this.time = time;
+            this.text = text;
+        }
+    }
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * Parses a time in the "yyyy-MM-dd HH:mm" layout.
+     *
+     * @param text the time
+     * @return the date and time
+     * @throws DateTimeParseException if the text is not a valid time in that layout
+     */
+    public static LocalDateTime parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses a time in the "yyyy-MM-dd HH:mm" layout from part of some text.
+     *
+     * @param text  the text holding the time
+     * @param start the start of the time
+     * @param end   the end of the time, exclusive
+     * @return the date and time
+     * @throws DateTimeParseException if the part is not a valid time in that layout
+     */
+    public static LocalDateTime parse(CharSequence text, int start, int end) {
+        if (end - start == LENGTH
+                && text.charAt(start + 4) == '-' && text.charAt(start + 7) == '-'
+                && text.charAt(start + 10) == ' ' && text.charAt(start + 13) == ':') {
+            int year = digits(text, start, 4);
+            int month = digits(text, start + 5, 2);
+            int day = digits(text, start + 8, 2);
+            int hour = digits(text, start + 11, 2);
+            int minute = digits(text, start + 14, 2);
+            // days past the end of the month are left to the formatter, which moves them back to it
+            if (year > 0 && month >= 1 && month <= 12 && day >= 1
+                    && (day <= 28 || day <= Month.of(month).length(Year.isLeap(year)))
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return LocalDateTime.of(year, month, day, hour, minute);
+            }
+        }
+        return LocalDateTime.parse(text.subSequence(start, end), FORMAT);
+    }
+
+    /**
+     * Reads a run of ASCII digits, or returns -1 if any of them is not one.
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Appends a time in the "yyyy-MM-dd HH:mm" layout.
+     *
+     * @param time the date and time; seconds are left out
+     * @param out  where to append it
+     * @return {@code out}
+     */
+    public static StringBuilder format(LocalDateTime time, StringBuilder out) {
+        int year = time.getYear();
+        if (year < 1 || year > 9999) {
+            FORMAT.formatTo(time, out);
+            return out;
+        }
+        appendDigits(out, year, 4).append('-');
+        appendDigits(out, time.getMonthValue(), 2).append('-');
+        appendDigits(out, time.getDayOfMonth(), 2).append(' ');
+        appendDigits(out, time.getHour(), 2).append(':');
+        return appendDigits(out, time.getMinute(), 2);
+    }
+
+    /**
+     * Returns a time in the "yyyy-MM-dd HH:mm" layout.
+     *
+     * @param time the date and time; seconds are left out
+     * @return the formatted time
+     */
+    public static String format(LocalDateTime time) {
+        return format(time, new StringBuilder(LENGTH)).toString();
+    }
+
+    /**
+     * Returns a time as shown to the user, e.g. "Jan 1 2025, 2:00PM".
+     *
+     * @param time the date and time
+     * @return the display string
+     */
+    public static String display(LocalDateTime time) {
+        int slot = time.hashCode() & (DISPLAY_CACHE_SIZE - 1);
+        Rendered cached = DISPLAY_CACHE[slot];
+        if (cached != null && cached.time.equals(time)) {
+            return cached.text;
+        }
+        String text = render(time);
+        DISPLAY_CACHE[slot] = new Rendered(time, text);
+        return text;
+    }
+
+    private static String render(LocalDateTime time) {
+        int year = time.getYear();
+        if (year < 1 || year > 9999) {
+            return DISPLAY_FORMAT.format(time);
+        }
+        int hour = time.getHour();
+        StringBuilder out = new StringBuilder(20)
+                .append(MONTHS[time.getMonthValue() - 1]).append(' ')
+                .append(time.getDayOfMonth()).append(' ');
+        appendDigits(out, year, 4).append(", ")
+                .append(hour % 12 == 0 ? 12 : hour % 12).append(':');
+        return appendDigits(out, time.getMinute(), 2).append(hour < 12 ? "AM" : "PM").toString();
+    }
+
+    private static StringBuilder appendDigits(StringBuilder out, int value, int width) {
+        int unit = 1;
+        for (int i = 1; i < width; i++) {
+            unit *= 10;
+        }
+        for (; unit > 0; unit /= 10) {
+            out.append((char) ('0' + value / unit % 10));
+        }
+        return out;
+    }
+
+    /**
+     * Converts a date and time to whole minutes since 1970-01-01 00:00.
+     *
+     * @param time the date and time
+     * @return the epoch minute
+     */
+    public static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Converts whole minutes since 1970-01-01 00:00 back to a date and time.
+     *
+     * @param epochMinute the epoch minute
+     * @return the date and time
+     */
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -1,7 +1,7 @@
 package task;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
 import util.ShrekException;
@@ -23,13 +23,24 @@ public class Deadline extends Task {
     public Deadline(String description, String by) throws ShrekException {
         super(description);
         try {
-            this.by = LocalDateTime.parse(by, DateTimeFormatter.ofPattern(
-                    "yyyy-MM-dd HH:mm")); // convert from string to LocalDate
+            this.by = DateTimeCodec.parse(by); // convert from string to LocalDateTime
         } catch (DateTimeParseException e) {
             throw new ShrekException("Shrek needs the date in *year-month-day HH:mm* format, e.g. 2025-01-01 14:30");
         }
     }
 
+    /**
+     * Constructs a Deadline task with an already parsed due date.
+     *
+     * @param description the task description
+     * @param by          the deadline date and time
+     */
+    public Deadline(String description, LocalDateTime by) {
+        super(description);
+        assert by != null : "Deadline date should not be null";
+        this.by = by;
+    }
+
     /**
      * Returns the deadline date of this task.
      *
@@ -40,6 +51,11 @@ public class Deadline extends Task {
         return by;
     }
 
+    @Override
+    public boolean isOnDate(LocalDate date) {
+        return by.toLocalDate().equals(date);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!super.equals(obj)) {
@@ -53,6 +69,11 @@ public class Deadline extends Task {
         return this.by.equals(other.by);
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + by.hashCode();
+    }
+
     /**
      * Returns a string representation of the Deadline task.
      * Includes task type, status, description, and formatted deadline date.
@@ -61,20 +82,20 @@ public class Deadline extends Task {
      */
     @Override
     public String toString() {
-        return "[D]" + super.toString()
-                + " (by: " + by.format(DateTimeFormatter.ofPattern("MMM d yyyy, h:mma")
-                .withLocale(java.util.Locale.ENGLISH)) + ")";
+        return "[D]" + super.toString() + " (by: " + DateTimeCodec.display(by) + ")";
     }
 
     /**
      * Returns the file format representation of the Deadline task for storage.
      * Format: "D | status | description | deadline_date"
      *
-     * @return string representation suitable for file storage
+     * @param out    where to append it
+     * @param isDone the completion status to write
+     * @return {@code out}
      */
     @Override
-    public String toFileFormat() {
-        return "D | " + (isDone ? "1" : "0") + " | " + description + " | " + by.format(
-                DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+    public StringBuilder appendFileFormat(StringBuilder out, boolean isDone) {
+        out.append("D | ").append(isDone ? '1' : '0').append(" | ").append(description).append(" | ");
+        return DateTimeCodec.format(by, out);
     }
 }
@@ -0,0 +1,42 @@
+package task;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Canonical instances of task descriptions, so that tasks with the same description,
+ * such as a daily "standup", share one string rather than each holding a copy.
+ *
+ * <p>The pool is a fixed table of {@link #SLOTS} descriptions indexed by hash, like the display cache
+ * in {@link DateTimeCodec}: a description that lands on a slot holding a different one replaces it,
+ * so only that one entry is evicted, and the table never grows. Slots hold their descriptions weakly,
+ * so a description no task uses any more can be collected, as with {@link String#intern()}.
+ * Strings are immutable and reference writes are atomic, so threads, such as the parallel loader's,
+ * share the table without locking; a race at worst leaves two equal strings in use, which is all that is lost.
+ */
+final class DescriptionPool {
+    static final int SLOTS = 1 << 16; // a power of two
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final WeakReference<String>[] CANONICAL = new WeakReference[SLOTS];
+
+    private DescriptionPool() {
+    }
+
+    /**
+     * Returns the canonical instance of a description, making it the canonical one if there is none.
+     *
+     * @param description the description
+     * @return an equal description, shared with other tasks where possible
+     */
+    static String intern(String description) {
+        int hash = description.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+        WeakReference<String> entry = CANONICAL[slot];
+        String canonical = entry == null ? null : entry.get();
+        if (canonical != null && canonical.equals(description)) {
+            return canonical;
+        }
+        CANONICAL[slot] = new WeakReference<>(description);
+        return description;
+    }
+}
@@ -1,7 +1,7 @@
 package task;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
 import util.ShrekException;
@@ -11,14 +11,6 @@ import util.ShrekException;
  * Extends the base Task class to include time-bound event functionality.
  */
 public class Event extends Task {
-    // input format we accept
-    private static final DateTimeFormatter INPUT_FORMAT =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-    // how we want to display it back to the user
-    private static final DateTimeFormatter OUTPUT_FORMAT =
-            DateTimeFormatter.ofPattern("MMM d yyyy, h:mma").withLocale(java.util.Locale.ENGLISH);
-
     private LocalDateTime from;
     private LocalDateTime to;
 
@@ -33,18 +25,38 @@ public class Event extends Task {
     public Event(String description, String from, String to) throws ShrekException {
         super(description);
         try {
-            this.from = LocalDateTime.parse(from, INPUT_FORMAT);
-            this.to = LocalDateTime.parse(to, INPUT_FORMAT);
+            this.from = DateTimeCodec.parse(from);
+            this.to = DateTimeCodec.parse(to);
         } catch (DateTimeParseException e) {
             throw new ShrekException(
                     "Shrek needs a valid date/time in *yyyy-MM-dd HH:mm* format, e.g. 2025-01-01 05:00"
             );
         }
+        checkOrder();
+    }
+
+    /**
+     * Constructs an Event task with already parsed start and end times.
+     *
+     * @param description the event description
+     * @param from        the start time
+     * @param to          the end time
+     * @throws ShrekException if the start time is after the end time
+     */
+    public Event(String description, LocalDateTime from, LocalDateTime to) throws ShrekException {
+        super(description);
+        assert from != null && to != null : "Event times should not be null";
+        this.from = from;
+        this.to = to;
+        checkOrder();
+    }
+
+    private void checkOrder() throws ShrekException {
         // Ensure start time is not after end time
         if (this.from.isAfter(this.to)) {
             throw new ShrekException("Shrek says the start time must be before or equal to the end time!\n"
-                    + "Start: " + this.from.format(OUTPUT_FORMAT) + "\n"
-                    + "End: " + this.to.format(OUTPUT_FORMAT));
+                    + "Start: " + DateTimeCodec.display(this.from) + "\n"
+                    + "End: " + DateTimeCodec.display(this.to));
         }
     }
 
@@ -66,6 +78,11 @@ public class Event extends Task {
         return to;
     }
 
+    @Override
+    public boolean isOnDate(LocalDate date) {
+        return !date.isBefore(from.toLocalDate()) && !date.isAfter(to.toLocalDate());
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (!super.equals(obj)) {
@@ -79,6 +96,11 @@ public class Event extends Task {
         return this.from.equals(other.from) && this.to.equals(other.to);
     }
 
+    @Override
+    public int hashCode() {
+        return (31 * super.hashCode() + from.hashCode()) * 31 + to.hashCode();
+    }
+
     /**
      * Returns a string representation of the Event task.
      * Includes task type, status, description, and formatted start/end times.
@@ -88,20 +110,22 @@ public class Event extends Task {
     @Override
     public String toString() {
         return "[E]" + super.toString()
-                + " (from: " + from.format(OUTPUT_FORMAT)
-                + " to: " + to.format(OUTPUT_FORMAT) + ")";
+                + " (from: " + DateTimeCodec.display(from)
+                + " to: " + DateTimeCodec.display(to) + ")";
     }
 
     /**
      * Returns the file format representation of the Event task for storage.
      * Format: "E | status | description | start_time | end_time"
      *
-     * @return string representation suitable for file storage
+     * @param out    where to append it
+     * @param isDone the completion status to write
+     * @return {@code out}
      */
     @Override
-    public String toFileFormat() {
-        return "E | " + (isDone ? "1" : "0") + " | " + description
-                + " | " + from.format(INPUT_FORMAT)
-                + " | " + to.format(INPUT_FORMAT);
+    public StringBuilder appendFileFormat(StringBuilder out, boolean isDone) {
+        out.append("E | ").append(isDone ? '1' : '0').append(" | ").append(description).append(" | ");
+        DateTimeCodec.format(from, out).append(" | ");
+        return DateTimeCodec.format(to, out);
     }
 }
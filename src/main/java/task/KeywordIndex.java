@@ -0,0 +1,172 @@
+package task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from the words of task descriptions to the IDs of the tasks using them.
+ *
+ * <p>Words are the lowercased, whitespace-separated tokens of a description. A keyword without
+ * whitespace occurs in a description exactly when it occurs in one of its words, so matching a
+ * keyword against the vocabulary of distinct words gives the same tasks as scanning every
+ * description. Keywords of three or more characters find their words through a {@link TrigramIndex},
+ * so the cost depends on the matches rather than the list size; shorter ones scan the vocabulary.
+ *
+ * <p>A keyword starting with {@code ~} is fuzzy: it matches words within a small edit distance of it,
+ * found through a {@link BkTree} over the vocabulary. Words leaving the vocabulary stay in the tree
+ * and are skipped, until they outnumber the live words and the tree is rebuilt.
+ */
+class KeywordIndex {
+    static final String FUZZY_PREFIX = "~";
+    static final int FUZZY_LIMIT = 10;
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    private BkTree similarWords = new BkTree();
+
+    /**
+     * Adds the words of a task's description to the index.
+     *
+     * @param task the task, which must already have its ID
+     */
+    void add(Task task) {
+        for (String word : words(task.getDescription())) {
+            postings.computeIfAbsent(word, w -> {
+                trigrams.add(w);
+                similarWords.add(w);
+                return new HashSet<>();
+            }).add(task.getId());
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task the task
+     */
+    void remove(Task task) {
+        for (String word : words(task.getDescription())) {
+            Set<Long> ids = postings.get(word);
+            if (ids != null) {
+                ids.remove(task.getId());
+                if (ids.isEmpty()) {
+                    postings.remove(word);
+                    trigrams.remove(word);
+                }
+            }
+        }
+        if (similarWords.size() > 2 * postings.size() + FUZZY_LIMIT) {
+            similarWords = new BkTree();
+            postings.keySet().forEach(similarWords::add);
+        }
+    }
+
+    /**
+     * Returns the IDs of the tasks whose description contains every keyword of a query,
+     * ignoring case. When the query has fuzzy keywords, only the {@link #FUZZY_LIMIT} closest
+     * tasks are returned, ordered by their total edit distance to the keywords.
+     *
+     * @param query one or more keywords separated by whitespace
+     * @return the matching IDs, closest first and then in task list order
+     */
+    List<Long> find(String query) {
+        List<Map<Long, Integer>> matches = new ArrayList<>();
+        boolean isFuzzy = false;
+        for (String keyword : words(query)) {
+            if (keyword.startsWith(FUZZY_PREFIX) && keyword.length() > FUZZY_PREFIX.length()) {
+                matches.add(idsNear(keyword.substring(FUZZY_PREFIX.length())));
+                isFuzzy = true;
+            } else {
+                matches.add(idsContaining(keyword));
+            }
+        }
+        if (matches.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // check the smallest match set against the others, adding up the distances
+        matches.sort(Comparator.comparingInt(Map::size));
+        Map<Long, Integer> distances = new HashMap<>();
+        for (Map.Entry<Long, Integer> match : matches.get(0).entrySet()) {
+            int total = match.getValue();
+            for (int i = 1; i < matches.size() && total >= 0; i++) {
+                Integer distance = matches.get(i).get(match.getKey());
+                total = distance == null ? -1 : total + distance;
+            }
+            if (total >= 0) {
+                distances.put(match.getKey(), total);
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(distances.keySet());
+        ids.sort(Comparator.comparing((Long id) -> distances.get(id)).thenComparing(Comparator.naturalOrder()));
+        return isFuzzy && ids.size() > FUZZY_LIMIT ? new ArrayList<>(ids.subList(0, FUZZY_LIMIT)) : ids;
+    }
+
+    /**
+     * Returns the largest edit distance a fuzzy keyword tolerates: one typo for short words, two otherwise.
+     *
+     * @param keyword the keyword, without its prefix
+     * @return the maximum edit distance
+     */
+    static int maxDistance(String keyword) {
+        return keyword.length() <= 4 ? 1 : 2;
+    }
+
+    /**
+     * Collects the IDs of tasks with a word near the keyword, each with its smallest edit distance.
+     */
+    private Map<Long, Integer> idsNear(String keyword) {
+        Map<Long, Integer> ids = new HashMap<>();
+        similarWords.search(keyword, maxDistance(keyword), (word, distance) -> {
+            Set<Long> posting = postings.get(word);
+            if (posting != null) {
+                for (long id : posting) {
+                    ids.merge(id, distance, Math::min);
+                }
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Collects the IDs of tasks with a word containing the keyword, each at distance zero.
+     */
+    private Map<Long, Integer> idsContaining(String keyword) {
+        Map<Long, Integer> ids = new HashMap<>();
+        if (keyword.length() >= TrigramIndex.GRAM) {
+            for (String word : trigrams.wordsContaining(keyword)) {
+                postings.get(word).forEach(id -> ids.put(id, 0));
+            }
+            return ids;
+        }
+
+        for (Map.Entry<String, Set<Long>> posting : postings.entrySet()) {
+            if (posting.getKey().contains(keyword)) {
+                posting.getValue().forEach(id -> ids.put(id, 0));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Splits text into its distinct lowercase words.
+     *
+     * @param text the text to split
+     * @return the words
+     */
+    static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : text.toLowerCase().split("\\s+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
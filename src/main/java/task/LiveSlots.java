@@ -0,0 +1,125 @@
+package task;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Counts the live slots of a list that leaves a tombstone in the slot of each deleted task,
+ * so that positions, which skip tombstones, and slots convert into each other in O(log n).
+ *
+ * <p>The counts are a Fenwick tree, 1-based, with one node per slot.
+ */
+final class LiveSlots {
+    private int[] counts = new int[16];
+    private int slots;
+    private int tombstones;
+
+    /**
+     * Starts over with some slots, counting those that hold a task.
+     *
+     * @param slots  the number of slots
+     * @param isLive whether the slot at a 0-based index holds a task
+     */
+    void reset(int slots, IntPredicate isLive) {
+        this.slots = slots;
+        this.tombstones = 0;
+        counts = new int[Math.max(16, slots * 2)];
+        for (int slot = 1; slot <= slots; slot++) {
+            if (isLive.test(slot - 1)) {
+                counts[slot]++;
+            } else {
+                tombstones++;
+            }
+            int parent = slot + Integer.lowestOneBit(slot);
+            if (parent <= slots) {
+                counts[parent] += counts[slot];
+            }
+        }
+    }
+
+    /**
+     * Adds a live slot at the end.
+     */
+    void append() {
+        int slot = ++slots; // 1-based
+        if (slot >= counts.length) {
+            counts = Arrays.copyOf(counts, counts.length * 2);
+        }
+        counts[slot] = 1 + prefixCount(slot - 1) - prefixCount(slot - Integer.lowestOneBit(slot));
+    }
+
+    /**
+     * Turns a live slot into a tombstone.
+     *
+     * @param slot the 0-based slot
+     */
+    void kill(int slot) {
+        tombstones++;
+        for (int i = slot + 1; i <= slots; i += Integer.lowestOneBit(i)) {
+            counts[i]--;
+        }
+    }
+
+    /**
+     * Drops the last slot, which must be live. No node past the last slot covers it,
+     * so it can simply be cleared, and the slot is reused by the next append.
+     */
+    void dropLast() {
+        counts[slots--] = 0;
+    }
+
+    /**
+     * Returns the number of slots, live or not.
+     *
+     * @return the slot count
+     */
+    int slots() {
+        return slots;
+    }
+
+    /**
+     * Returns the number of tombstones.
+     *
+     * @return the tombstone count
+     */
+    int tombstones() {
+        return tombstones;
+    }
+
+    /**
+     * Counts the live slots among the first {@code slots} slots, which is the position
+     * of the task in slot {@code slots}.
+     *
+     * @param slots the number of leading slots
+     * @return the live slots among them
+     */
+    int prefixCount(int slots) {
+        int count = 0;
+        for (int i = slots; i > 0; i -= Integer.lowestOneBit(i)) {
+            count += counts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Finds the slot holding the task at a position, skipping tombstones.
+     *
+     * @param index the zero-based position, which must be below the number of live slots
+     * @return the 0-based slot
+     */
+    int slotOf(int index) {
+        if (tombstones == 0) {
+            return index;
+        }
+        int slot = 0;
+        int remaining = index + 1;
+        for (int step = Integer.highestOneBit(slots); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= slots && counts[next] < remaining) {
+                slot = next;
+                remaining -= counts[next];
+            }
+        }
+        return slot; // the 1-based slot after the last skipped one, as a 0-based index
+    }
+}
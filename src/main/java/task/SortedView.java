@@ -0,0 +1,117 @@
+package task;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+import instruction.SortInstruction.SortCriteria;
+
+/**
+ * Tasks of a task list kept in one sort order as they are added and removed,
+ * so a sorted listing is a walk through a red-black tree rather than a sort.
+ *
+ * <p>Each task's sort key is computed once, when it joins the view: a number (epoch second or type rank)
+ * and, where the order uses it, the description. Ties are broken by ID, which is list order,
+ * so the view matches a stable sort of the list.
+ */
+class SortedView {
+    /**
+     * Precomputed sort key of one task.
+     */
+    private static class Key implements Comparable<Key> {
+        private final long rank;
+        private final String text;
+        private final long id;
+
+        Key(long rank, String text, long id) {
+            this.rank = rank;
+            this.text = text;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if (rank != other.rank) {
+                return Long.compare(rank, other.rank);
+            }
+            int byText = text == other.text ? 0 : text.compareTo(other.text);
+            return byText != 0 ? byText : Long.compare(id, other.id);
+        }
+    }
+
+    private final SortCriteria criteria;
+    private final TreeMap<Key, Task> tasks = new TreeMap<>();
+
+    /**
+     * Constructs an empty view sorted by some criteria.
+     *
+     * @param criteria the criteria to sort by
+     */
+    SortedView(SortCriteria criteria) {
+        this.criteria = criteria;
+    }
+
+    /**
+     * Adds a task to the view.
+     *
+     * @param task the task, which must already have its ID
+     */
+    void add(Task task) {
+        tasks.put(keyOf(task), task);
+    }
+
+    /**
+     * Removes a task from the view.
+     *
+     * @param task the task
+     */
+    void remove(Task task) {
+        tasks.remove(keyOf(task));
+    }
+
+    /**
+     * Returns the tasks of the view in order.
+     *
+     * @return the sorted tasks
+     */
+    ArrayList<Task> toList() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    private Key keyOf(Task task) {
+        return switch (criteria) {
+        case DESCRIPTION -> new Key(0, task.getDescription(), task.getId());
+        case DATE -> new Key(epochSecondOf(task), "", task.getId());
+        case TYPE -> new Key(typeRankOf(task), task.getDescription(), task.getId());
+        };
+    }
+
+    /**
+     * Returns when a deadline is due or an event starts; todos sort after every date.
+     */
+    private static long epochSecondOf(Task task) {
+        LocalDateTime time;
+        if (task instanceof Deadline d) {
+            time = d.getBy();
+        } else if (task instanceof Event e) {
+            time = e.getFrom();
+        } else {
+            return Long.MAX_VALUE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the rank of a task's type: deadlines, then events, then todos.
+     */
+    private static long typeRankOf(Task task) {
+        if (task instanceof Deadline) {
+            return 1;
+        }
+        if (task instanceof Event) {
+            return 2;
+        }
+        return 3;
+    }
+}
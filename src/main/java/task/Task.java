@@ -1,37 +1,100 @@
 package task;
 
+import java.time.LocalDate;
+
 /**
  * Abstract base class representing a task in the Shrek application.
  * Provides common functionality for all task types (Todo, Deadline, Event).
  */
 public abstract class Task {
     protected String description;
-    protected boolean isDone;
+    protected volatile boolean isDone; // read without locking by ConcurrentTaskList's readers
+    private boolean isDirty;
+    private long id;
 
     /**
      * Constructs a Task with the specified description.
-     * Initializes the task as not done.
+     * Initializes the task as not done. Equal descriptions share one instance, through
+     * {@link DescriptionPool}, whether the task is typed in or loaded from storage.
      *
      * @param description the task description
      */
     public Task(String description) {
         assert description != null : "Task description must not be null";
-        this.description = description;
+        this.description = DescriptionPool.intern(description);
         this.isDone = false;
     }
 
     /**
      * Returns the file format representation of the task.
+     *
+     * @return string representation suitable for file storage
+     */
+    public String toFileFormat() {
+        return toFileFormat(isDone);
+    }
+
+    /**
+     * Returns the file format representation of the task with the given completion status.
+     *
+     * @param isDone the completion status to write
+     * @return string representation suitable for file storage
+     */
+    public String toFileFormat(boolean isDone) {
+        return appendFileFormat(new StringBuilder(), isDone).toString();
+    }
+
+    /**
+     * Appends the file format representation of the task with the given completion status,
+     * so that a writer can reuse one builder for every line.
      * Must be implemented by concrete task subclasses.
      *
+     * @param out    where to append it
+     * @param isDone the completion status to write
+     * @return {@code out}
+     */
+    public abstract StringBuilder appendFileFormat(StringBuilder out, boolean isDone);
+
+    /**
+     * Returns the file format representation of the task preceded by its ID,
+     * e.g. "#12 | T | 0 | read book".
+     *
+     * @param isDone the completion status to write
      * @return string representation suitable for file storage
      */
-    public abstract String toFileFormat();
+    public String toFileFormatWithId(boolean isDone) {
+        return appendFileFormatWithId(new StringBuilder(), isDone).toString();
+    }
+
+    /**
+     * Appends the file format representation of the task preceded by its ID.
+     *
+     * @param out    where to append it
+     * @param isDone the completion status to write
+     * @return {@code out}
+     */
+    public StringBuilder appendFileFormatWithId(StringBuilder out, boolean isDone) {
+        return appendFileFormat(out.append('#').append(id).append(" | "), isDone);
+    }
 
     public String getDescription() {
         return this.description;
     }
 
+    /**
+     * Returns the task's stable ID, or 0 if it has not been given one yet.
+     * IDs are handed out by {@link TaskList} in increasing order and never change.
+     *
+     * @return the task ID
+     */
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
     /**
      * Returns the status icon representing the task's completion state.
      *
@@ -41,10 +104,20 @@ public abstract class Task {
         return (isDone ? "X" : " ");
     }
 
+    /**
+     * Returns whether the task is done.
+     *
+     * @return true if the task is marked as done
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
     /**
      * Marks the task as done.
      */
     public void markAsDone() {
+        isDirty |= !isDone;
         this.isDone = true;
     }
 
@@ -52,9 +125,36 @@ public abstract class Task {
      * Marks the task as not done.
      */
     public void markAsNotDone() {
+        isDirty |= isDone;
         this.isDone = false;
     }
 
+    /**
+     * Returns whether the completion status has changed since the task was last persisted.
+     *
+     * @return true if the change still has to be written
+     */
+    public boolean isDirty() {
+        return isDirty;
+    }
+
+    /**
+     * Records that the task's current status has been persisted.
+     */
+    public void clearDirty() {
+        this.isDirty = false;
+    }
+
+    /**
+     * Returns whether the task falls on a date. Only deadlines and events have dates.
+     *
+     * @param date the date to check
+     * @return true if the task is due on or runs through the date
+     */
+    public boolean isOnDate(LocalDate date) {
+        return false;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -68,6 +168,11 @@ public abstract class Task {
         return this.description.equals(other.description);
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * getClass().hashCode() + description.hashCode();
+    }
+
     /**
      * Returns a string representation of the Task.
      * Includes status icon and description.
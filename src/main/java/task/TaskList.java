@@ -1,39 +1,107 @@
 package task;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
 
+import instruction.SortInstruction.SortCriteria;
 import util.ShrekException;
 
 /**
  * Manages a collection of tasks and provides operations for task manipulation.
  * Serves as the main data structure for storing and managing tasks in the application.
+ *
+ * <p>Tasks can be addressed by position or by their stable ID. Deleting a task leaves a
+ * tombstone in its slot instead of shifting the tasks after it; {@link LiveSlots} maps
+ * positions to slots in O(log n), and tombstones are compacted away once
+ * they outnumber the live tasks or the whole list is needed.
+ * A count of equal tasks is kept alongside, so duplicate checks take O(1). A {@link TimeIndex},
+ * a {@link KeywordIndex} and a {@link Bm25Index} are built on the first date query, find and
+ * ranked search respectively, and kept up to date from then on, as is a {@link SortedView}
+ * for each sort order that has been asked for.
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    /** Fewer tombstones than this are never worth compacting before the whole list is needed. */
+    static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+
+    private ArrayList<Task> tasks; // slots in list order; null where a task was deleted
+    private final HashMap<Long, Integer> slotById = new HashMap<>();
+    private final HashMap<Task, Integer> equalCounts = new HashMap<>();
+    private TimeIndex timeIndex;
+    private KeywordIndex keywordIndex;
+    private Bm25Index bm25Index;
+    private final EnumMap<SortCriteria, SortedView> sortedViews = new EnumMap<>(SortCriteria.class);
+    private final LiveSlots liveSlots = new LiveSlots();
+    private long nextId;
 
     /**
      * Constructs an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(new ArrayList<>());
     }
 
     /**
      * Constructs a TaskList with existing tasks.
+     * Tasks without an ID are given one, continuing from the task before them.
      *
      * @param tasks the initial list of tasks
      */
     public TaskList(ArrayList<Task> tasks) {
         this.tasks = tasks;
+        this.nextId = assignIds(tasks);
+        rebuildIndex();
+        for (Task task : tasks) {
+            equalCounts.merge(task, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Gives every task without an ID the ID after the previous task's, so that IDs
+     * increase along the list. Tasks loaded from files written before IDs existed
+     * are numbered 1, 2, 3, ...
+     *
+     * @param tasks the tasks in list order
+     * @return the next unused ID
+     */
+    public static long assignIds(List<Task> tasks) {
+        long previous = 0;
+        for (Task task : tasks) {
+            if (task.getId() <= previous) {
+                task.setId(previous + 1);
+            }
+            previous = task.getId();
+        }
+        return previous + 1;
     }
 
     /**
-     * Adds a task to the task list.
+     * Adds a task to the task list and gives it the next ID.
      *
      * @param task the task to be added
      */
     public void add(Task task) {
+        task.setId(nextId++);
         tasks.add(task);
+        slotById.put(task.getId(), tasks.size() - 1);
+        equalCounts.merge(task, 1, Integer::sum);
+        if (timeIndex != null) {
+            timeIndex.add(task);
+        }
+        if (keywordIndex != null) {
+            keywordIndex.add(task);
+        }
+        if (bm25Index != null) {
+            bm25Index.add(task);
+        }
+        for (SortedView view : sortedViews.values()) {
+            view.add(task);
+        }
+        liveSlots.append();
     }
 
     /**
@@ -44,18 +112,71 @@ public class TaskList {
      * @throws ShrekException if the index is out of bounds
      */
     public Task get(int index) throws ShrekException {
-        if (index < 0 || index >= tasks.size()) {
-            if (tasks.isEmpty()) {
-                throw new ShrekException("Shrek's swamp is empty! No onions to find here.");
-            } else if (index < 0) {
-                throw new ShrekException("BIG onion! Task numbers start from 1, not " + (index + 1) + "!");
-            } else {
-                throw new ShrekException("That onion doesn't exist in Shrek's swamp!\n"
-                        + "Shrek only has " + tasks.size() + " task" + (tasks.size() != 1 ? "s" : "")
-                        + ". Use 'list' to see them all.");
-            }
+        if (index < 0 || index >= size()) {
+            throw missingIndex(index, size());
         }
-        return tasks.get(index);
+        return tasks.get(liveSlots.slotOf(index));
+    }
+
+    /**
+     * Returns the error for a position that is not in a list of some size.
+     *
+     * @param index the zero-based position asked for
+     * @param size  the size of the list
+     * @return the exception to throw
+     */
+    static ShrekException missingIndex(int index, int size) {
+        if (size == 0) {
+            return new ShrekException("Shrek's swamp is empty! No onions to find here.");
+        } else if (index < 0) {
+            return new ShrekException("BIG onion! Task numbers start from 1, not " + (index + 1) + "!");
+        }
+        return new ShrekException("That onion doesn't exist in Shrek's swamp!\n"
+                + "Shrek only has " + size + " task" + (size != 1 ? "s" : "")
+                + ". Use 'list' to see them all.");
+    }
+
+    /**
+     * Returns the position of the task with the given ID.
+     *
+     * @param id the task ID
+     * @return the zero-based position of the task
+     * @throws ShrekException if no task has the ID
+     */
+    public int indexOf(long id) throws ShrekException {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            throw missingId(id);
+        }
+        return liveSlots.prefixCount(slot);
+    }
+
+    /**
+     * Returns the error for an ID that no task has.
+     *
+     * @param id the ID asked for
+     * @return the exception to throw
+     */
+    static ShrekException missingId(long id) {
+        return new ShrekException("Shrek can't find onion #" + id + " in the swamp!");
+    }
+
+    /**
+     * Marks the task at a position as done or not done.
+     *
+     * @param index  the zero-based index of the task
+     * @param isDone true to mark the task as done, false to mark it as not done
+     * @return the task
+     * @throws ShrekException if the index is out of bounds
+     */
+    public Task mark(int index, boolean isDone) throws ShrekException {
+        Task task = get(index);
+        if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsNotDone();
+        }
+        return task;
     }
 
     /**
@@ -66,18 +187,56 @@ public class TaskList {
      * @throws ShrekException if the index is out of bounds
      */
     public Task remove(int index) throws ShrekException {
-        if (index < 0 || index >= tasks.size()) {
-            if (tasks.isEmpty()) {
-                throw new ShrekException("Shrek's swamp is already empty! No onions to YEET!");
-            } else if (index < 0) {
-                throw new ShrekException("BIG onion! Task numbers start from 1, not " + (index + 1) + "!");
-            } else {
-                throw new ShrekException("Shrek can't YEET an onion that doesn't exist!\n"
-                        + "Shrek only has " + tasks.size() + " task" + (tasks.size() != 1 ? "s" : "")
-                        + ". Use 'list' to see them all.");
+        if (index < 0 || index >= size()) {
+            throw missingToRemove(index, size());
+        }
+
+        int slot = liveSlots.slotOf(index);
+        Task removed = tasks.get(slot);
+        slotById.remove(removed.getId());
+        equalCounts.computeIfPresent(removed, (task, count) -> count > 1 ? count - 1 : null);
+        if (timeIndex != null) {
+            timeIndex.remove(removed);
+        }
+        if (keywordIndex != null) {
+            keywordIndex.remove(removed);
+        }
+        if (bm25Index != null) {
+            bm25Index.remove(removed);
+        }
+        for (SortedView view : sortedViews.values()) {
+            view.remove(removed);
+        }
+        if (slot == tasks.size() - 1) {
+            // no Fenwick node past the last slot covers it, so it can simply be dropped
+            tasks.remove(slot);
+            liveSlots.dropLast();
+        } else {
+            tasks.set(slot, null);
+            liveSlots.kill(slot);
+            if (liveSlots.tombstones() >= MIN_TOMBSTONES_TO_COMPACT && liveSlots.tombstones() > size()) {
+                compact();
             }
         }
-        return tasks.remove(index);
+        return removed;
+    }
+
+    /**
+     * Returns the error for removing a position that is not in a list of some size.
+     *
+     * @param index the zero-based position asked for
+     * @param size  the size of the list
+     * @return the exception to throw
+     */
+    static ShrekException missingToRemove(int index, int size) {
+        if (size == 0) {
+            return new ShrekException("Shrek's swamp is already empty! No onions to YEET!");
+        } else if (index < 0) {
+            return new ShrekException("BIG onion! Task numbers start from 1, not " + (index + 1) + "!");
+        }
+        return new ShrekException("Shrek can't YEET an onion that doesn't exist!\n"
+                + "Shrek only has " + size + " task" + (size != 1 ? "s" : "")
+                + ". Use 'list' to see them all.");
     }
 
     /**
@@ -87,12 +246,147 @@ public class TaskList {
      * @return true if a duplicate task exists, false otherwise
      */
     public boolean hasDuplicate(Task newTask) {
-        for (Task existingTask : tasks) {
-            if (existingTask.equals(newTask)) {
-                return true;
-            }
+        return equalCounts.containsKey(newTask);
+    }
+
+    /**
+     * Returns the deadlines due and the events running on a date, in chronological order.
+     *
+     * @param date the date
+     * @return the matching tasks
+     */
+    public List<Task> getTasksOnDate(LocalDate date) {
+        return getTasksBetween(date, date);
+    }
+
+    /**
+     * Returns the deadlines due and the events running between two dates, inclusive,
+     * in chronological order of their due or start times.
+     *
+     * @param first the first day of the range
+     * @param last  the last day of the range
+     * @return the matching tasks
+     */
+    public List<Task> getTasksBetween(LocalDate first, LocalDate last) {
+        return timeIndex().between(first, last);
+    }
+
+    /**
+     * Returns the undone deadlines due and events still running at or after a time,
+     * soonest first. Only the tasks returned and the done ones skipped over are visited.
+     *
+     * @param now   the time to look ahead from
+     * @param count the largest number of tasks to return
+     * @return up to {@code count} upcoming tasks, ordered by due or start time
+     */
+    public List<Task> getUpcoming(LocalDateTime now, int count) {
+        return timeIndex().upcoming(now, count);
+    }
+
+    private TimeIndex timeIndex() {
+        if (timeIndex == null) {
+            timeIndex = new TimeIndex();
+            liveTasks().forEach(timeIndex::add);
+        }
+        return timeIndex;
+    }
+
+    /**
+     * Returns the tasks whose description contains every keyword of a query, ignoring case.
+     * Keywords starting with {@code ~} also match words with a typo or two, and then only
+     * the closest tasks are returned.
+     *
+     * @param query one or more keywords separated by whitespace
+     * @return the matching tasks, closest first and then in list order
+     */
+    public List<Task> find(String query) {
+        if (keywordIndex == null) {
+            keywordIndex = new KeywordIndex();
+            liveTasks().forEach(keywordIndex::add);
+        }
+
+        List<Task> matches = new ArrayList<>();
+        for (long id : keywordIndex.find(query)) {
+            matches.add(tasks.get(slotById.get(id)));
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the tasks most relevant to a query, ranked by BM25: tasks score higher
+     * for using more of the query words, rarer ones and repeated ones, and for being short.
+     *
+     * @param query one or more words separated by whitespace, matched whole and ignoring case
+     * @param limit the largest number of tasks to return
+     * @return up to {@code limit} tasks containing a query word, most relevant first
+     */
+    public List<Task> search(String query, int limit) {
+        if (bm25Index == null) {
+            bm25Index = new Bm25Index();
+            liveTasks().forEach(bm25Index::add);
+        }
+
+        List<Task> matches = new ArrayList<>();
+        for (long id : bm25Index.search(query, limit)) {
+            matches.add(tasks.get(slotById.get(id)));
+        }
+        return matches;
+    }
+
+    /**
+     * Tasks that match a query, each with its position in the list as of that query.
+     *
+     * @param tasks   the matching tasks, in the order the query returns them
+     * @param indices the zero-based position of each task
+     */
+    public record Matches(List<Task> tasks, List<Integer> indices) {
+    }
+
+    /**
+     * Returns the tasks that {@link #find} returns for a query, with their positions
+     * taken from the same state of the list.
+     *
+     * @param query one or more keywords separated by whitespace
+     * @return the matching tasks and their positions
+     * @throws ShrekException if a matching task cannot be numbered
+     */
+    public Matches findNumbered(String query) throws ShrekException {
+        return numbered(find(query));
+    }
+
+    /**
+     * Returns the tasks that {@link #search} returns for a query, with their positions
+     * taken from the same state of the list.
+     *
+     * @param query one or more words separated by whitespace
+     * @param limit the largest number of tasks to return
+     * @return the best matching tasks and their positions
+     * @throws ShrekException if a matching task cannot be numbered
+     */
+    public Matches searchNumbered(String query, int limit) throws ShrekException {
+        return numbered(search(query, limit));
+    }
+
+    private Matches numbered(List<Task> matches) throws ShrekException {
+        List<Integer> indices = new ArrayList<>(matches.size());
+        for (Task match : matches) {
+            indices.add(indexOf(match.getId()));
         }
-        return false;
+        return new Matches(matches, indices);
+    }
+
+    /**
+     * Returns the tasks sorted by some criteria. Tasks that tie keep their list order.
+     *
+     * @param criteria the criteria to sort by
+     * @return a new list of the tasks, sorted
+     */
+    public ArrayList<Task> getSorted(SortCriteria criteria) {
+        return sortedViews.computeIfAbsent(criteria, c -> {
+            SortedView view = new SortedView(c);
+            liveTasks().forEach(view::add);
+            return view;
+        }).toList();
     }
 
     /**
@@ -101,15 +395,52 @@ public class TaskList {
      * @return the size of the task list
      */
     public int size() {
-        return tasks.size();
+        return tasks.size() - liveSlots.tombstones();
     }
 
     /**
      * Returns all tasks in the task list.
+     * Compacts away the slots of deleted tasks first.
      *
      * @return an ArrayList containing all tasks
      */
     public ArrayList<Task> getAllTasks() {
+        compact();
         return tasks;
     }
+
+    /**
+     * Returns a copy of the tasks, in order, without compacting the list first,
+     * so that nothing is modified.
+     *
+     * @return a new list of the tasks
+     */
+    ArrayList<Task> liveTasks() {
+        ArrayList<Task> live = new ArrayList<>(tasks.size() - liveSlots.tombstones());
+        for (Task task : tasks) {
+            if (task != null) {
+                live.add(task);
+            }
+        }
+        return live;
+    }
+
+    private void compact() {
+        if (liveSlots.tombstones() == 0) {
+            return;
+        }
+        tasks.removeIf(Objects::isNull);
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        slotById.clear();
+        for (int slot = 0; slot < tasks.size(); slot++) {
+            Task task = tasks.get(slot);
+            if (task != null) {
+                slotById.put(task.getId(), slot);
+            }
+        }
+        liveSlots.reset(tasks.size(), slot -> tasks.get(slot) != null);
+    }
 }
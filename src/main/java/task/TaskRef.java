@@ -0,0 +1,55 @@
+package task;
+
+import util.ShrekException;
+
+/**
+ * Refers to a task either by its position in the list, as in "delete 3",
+ * or by its stable ID, as in "delete #3". IDs keep pointing at the same task
+ * when other tasks are deleted.
+ */
+public class TaskRef {
+    private final boolean isId;
+    private final long value;
+
+    private TaskRef(boolean isId, long value) {
+        this.isId = isId;
+        this.value = value;
+    }
+
+    /**
+     * Returns a reference to the task at a position.
+     *
+     * @param index the zero-based position of the task
+     * @return the reference
+     */
+    public static TaskRef ofIndex(int index) {
+        return new TaskRef(false, index);
+    }
+
+    /**
+     * Returns a reference to the task with an ID.
+     *
+     * @param id the task ID
+     * @return the reference
+     */
+    public static TaskRef ofId(long id) {
+        return new TaskRef(true, id);
+    }
+
+    /**
+     * Finds the current position of the referenced task.
+     * Positions are returned as given; the task list checks them when they are used.
+     *
+     * @param tasks the task list
+     * @return the zero-based position of the task
+     * @throws ShrekException if no task has the referenced ID
+     */
+    public int resolve(TaskList tasks) throws ShrekException {
+        return isId ? tasks.indexOf(value) : (int) value;
+    }
+
+    @Override
+    public String toString() {
+        return isId ? "#" + value : String.valueOf(value + 1);
+    }
+}
@@ -0,0 +1,118 @@
+package task;
+
+/**
+ * Columns of tasks behind a {@link CompactTaskList}, addressed by slot. Slots are numbered in list order,
+ * deleted tasks keep theirs until the store is compacted, and IDs increase along the slots.
+ *
+ * <p>{@link CompactTaskStore} keeps the columns on the heap; the storage layer can keep them elsewhere,
+ * e.g. in the data file itself.
+ */
+public interface TaskStore {
+    /** Type of a todo. */
+    byte TODO = 0;
+    /** Type of a deadline. */
+    byte DEADLINE = 1;
+    /** Type of an event. */
+    byte EVENT = 2;
+
+    /**
+     * Appends a copy of a task, keeping its ID and completion status.
+     *
+     * @param task the task, whose ID must be above every stored one
+     * @return the slot of the copy
+     */
+    int add(Task task);
+
+    /**
+     * Builds the task in a slot. Each call returns a new object; changes to it do not reach the store.
+     *
+     * @param slot the slot
+     * @return the task
+     */
+    Task get(int slot);
+
+    /**
+     * Returns the type of the task in a slot: {@link #TODO}, {@link #DEADLINE} or {@link #EVENT}.
+     *
+     * @param slot the slot
+     * @return the type
+     */
+    byte type(int slot);
+
+    /**
+     * Returns when the deadline in a slot is due or the event in it starts, in epoch minutes.
+     *
+     * @param slot the slot
+     * @return the epoch minute
+     */
+    long start(int slot);
+
+    /**
+     * Returns when the event in a slot ends, in epoch minutes.
+     *
+     * @param slot the slot
+     * @return the epoch minute
+     */
+    long end(int slot);
+
+    /**
+     * Returns the ID of the task in a slot, deleted or not.
+     *
+     * @param slot the slot
+     * @return the task ID
+     */
+    long getId(int slot);
+
+    /**
+     * Finds the slot of the task with an ID.
+     *
+     * @param id the task ID
+     * @return the slot, or -1 if no task has the ID or it was deleted
+     */
+    int slotOfId(long id);
+
+    /**
+     * Returns whether the task in a slot is done.
+     *
+     * @param slot the slot
+     * @return true if the task is done
+     */
+    boolean isDone(int slot);
+
+    /**
+     * Marks the task in a slot as done or not done.
+     *
+     * @param slot   the slot
+     * @param isDone whether the task is done
+     */
+    void setDone(int slot, boolean isDone);
+
+    /**
+     * Returns whether the task in a slot was deleted.
+     *
+     * @param slot the slot
+     * @return true if the slot is a tombstone
+     */
+    boolean isDeleted(int slot);
+
+    /**
+     * Deletes the task in a slot. The slots of other tasks do not change until {@link #compact}.
+     *
+     * @param slot the slot
+     */
+    void remove(int slot);
+
+    /**
+     * Returns the number of slots, including those of deleted tasks.
+     *
+     * @return the slot count
+     */
+    int slots();
+
+    /**
+     * Moves the remaining tasks down over deleted slots, changing their slots, if the store can do so now.
+     *
+     * @return true if the deleted slots are gone
+     */
+    boolean compact();
+}
@@ -0,0 +1,263 @@
+package task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Time index over the deadlines and events of a task list, answering date range queries
+ * in chronological order without scanning the list.
+ *
+ * <p>Deadlines are kept in a navigable map keyed by due time. Events are kept in an interval tree:
+ * a treap ordered by start time in which every node also holds the latest end time in its subtree,
+ * so subtrees with no event running into the range are skipped. A query visits O(log n) nodes plus
+ * the paths to the k tasks it returns, and done tasks passed over on the way for upcoming tasks.
+ */
+class TimeIndex {
+    /**
+     * Orders tasks by a time, breaking ties by ID so that every key is unique.
+     */
+    private static class Key implements Comparable<Key> {
+        private final LocalDateTime time;
+        private final long id;
+
+        Key(LocalDateTime time, long id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byTime = time.compareTo(other.time);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Interval tree node holding one event.
+     */
+    private static class Node {
+        private final Key key;
+        private final Event event;
+        private final int priority;
+        private LocalDateTime latestEnd;
+        private Node left;
+        private Node right;
+
+        Node(Event event, int priority) {
+            this.key = new Key(event.getFrom(), event.getId());
+            this.event = event;
+            this.priority = priority;
+            this.latestEnd = event.getTo();
+        }
+    }
+
+    private final TreeMap<Key, Deadline> deadlines = new TreeMap<>();
+    private final Random priorities = new Random();
+    private Node root;
+
+    /**
+     * Adds a task to the index. Todos have no dates and are ignored.
+     *
+     * @param task the task, which must already have its ID
+     */
+    void add(Task task) {
+        if (task instanceof Deadline d) {
+            deadlines.put(new Key(d.getBy(), d.getId()), d);
+        } else if (task instanceof Event e) {
+            root = insert(root, new Node(e, priorities.nextInt()));
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task the task
+     */
+    void remove(Task task) {
+        if (task instanceof Deadline d) {
+            deadlines.remove(new Key(d.getBy(), d.getId()));
+        } else if (task instanceof Event e) {
+            root = delete(root, new Key(e.getFrom(), e.getId()));
+        }
+    }
+
+    /**
+     * Returns the deadlines due and the events running between two dates, inclusive,
+     * ordered by due or start time.
+     *
+     * @param first the first day of the range
+     * @param last  the last day of the range
+     * @return the matching tasks in chronological order
+     */
+    List<Task> between(LocalDate first, LocalDate last) {
+        LocalDateTime start = first.atStartOfDay();
+        LocalDateTime end = last.plusDays(1).atStartOfDay();
+
+        List<Node> events = new ArrayList<>();
+        collect(root, start, end, events);
+        Map<Key, Deadline> due = deadlines.subMap(new Key(start, Long.MIN_VALUE), new Key(end, Long.MIN_VALUE));
+
+        // merge the two chronological lists
+        List<Task> tasks = new ArrayList<>(due.size() + events.size());
+        int next = 0;
+        for (Map.Entry<Key, Deadline> deadline : due.entrySet()) {
+            while (next < events.size() && events.get(next).key.compareTo(deadline.getKey()) < 0) {
+                tasks.add(events.get(next++).event);
+            }
+            tasks.add(deadline.getValue());
+        }
+        while (next < events.size()) {
+            tasks.add(events.get(next++).event);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the first undone deadlines due and events still running at or after a time,
+     * ordered by due or start time.
+     *
+     * @param now   the time to look ahead from
+     * @param count the largest number of tasks to return
+     * @return up to {@code count} upcoming tasks in chronological order
+     */
+    List<Task> upcoming(LocalDateTime now, int count) {
+        List<Node> events = new ArrayList<>();
+        collectUpcoming(root, now, count, events);
+
+        // merge the two chronological lists, stopping at count
+        List<Task> tasks = new ArrayList<>(count);
+        int next = 0;
+        for (Map.Entry<Key, Deadline> deadline : deadlines.tailMap(new Key(now, Long.MIN_VALUE)).entrySet()) {
+            if (tasks.size() == count) {
+                return tasks;
+            }
+            if (deadline.getValue().isDone()) {
+                continue;
+            }
+            while (next < events.size() && tasks.size() < count
+                    && events.get(next).key.compareTo(deadline.getKey()) < 0) {
+                tasks.add(events.get(next++).event);
+            }
+            if (tasks.size() < count) {
+                tasks.add(deadline.getValue());
+            }
+        }
+        while (next < events.size() && tasks.size() < count) {
+            tasks.add(events.get(next++).event);
+        }
+        return tasks;
+    }
+
+    /**
+     * Adds, in start order, up to {@code count} undone events in a subtree that end at or after {@code now}.
+     */
+    private static void collectUpcoming(Node node, LocalDateTime now, int count, List<Node> events) {
+        if (node == null || events.size() >= count || node.latestEnd.isBefore(now)) {
+            return;
+        }
+        collectUpcoming(node.left, now, count, events);
+        if (events.size() >= count) {
+            return;
+        }
+        if (!node.event.getTo().isBefore(now) && !node.event.isDone()) {
+            events.add(node);
+        }
+        collectUpcoming(node.right, now, count, events);
+    }
+
+    /**
+     * Adds, in start order, the events in a subtree that start before {@code end} and end at or after
+     * {@code start}.
+     */
+    private static void collect(Node node, LocalDateTime start, LocalDateTime end, List<Node> events) {
+        if (node == null || node.latestEnd.isBefore(start)) {
+            return;
+        }
+        collect(node.left, start, end, events);
+        if (!node.event.getFrom().isBefore(end)) {
+            return; // this event and everything to its right start too late
+        }
+        if (!node.event.getTo().isBefore(start)) {
+            events.add(node);
+        }
+        collect(node.right, start, end, events);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.key.compareTo(node.key) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Key key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key);
+        Node top = node;
+        if (cmp < 0) {
+            node.left = delete(node.left, key);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, key);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            top = rotateRight(node);
+            top.right = delete(node, key);
+        } else {
+            top = rotateLeft(node);
+            top.left = delete(node, key);
+        }
+        update(top);
+        return top;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        LocalDateTime latest = node.event.getTo();
+        if (node.left != null && node.left.latestEnd.isAfter(latest)) {
+            latest = node.left.latestEnd;
+        }
+        if (node.right != null && node.right.latestEnd.isAfter(latest)) {
+            latest = node.right.latestEnd;
+        }
+        node.latestEnd = latest;
+    }
+}
@@ -34,10 +34,12 @@ public class Todo extends Task {
      * Returns the file format representation of the Todo task for storage.
      * Format: "T | status | description"
      *
-     * @return string representation suitable for file storage
+     * @param out    where to append it
+     * @param isDone the completion status to write
+     * @return {@code out}
      */
     @Override
-    public String toFileFormat() {
-        return "T | " + (isDone ? "1" : "0") + " | " + description;
+    public StringBuilder appendFileFormat(StringBuilder out, boolean isDone) {
+        return out.append("T | ").append(isDone ? '1' : '0').append(" | ").append(description);
     }
 }
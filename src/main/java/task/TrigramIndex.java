@@ -0,0 +1,84 @@
+package task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index from every three-character substring (trigram) to the words containing it.
+ * A word containing a keyword of three or more characters contains all of the keyword's trigrams,
+ * so intersecting their word sets narrows the candidates without scanning every word;
+ * each candidate is then confirmed with {@link String#contains}.
+ */
+class TrigramIndex {
+    static final int GRAM = 3;
+
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+
+    /**
+     * Adds a word to the index.
+     *
+     * @param word the word
+     */
+    void add(String word) {
+        for (String trigram : trigrams(word)) {
+            wordsByTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(word);
+        }
+    }
+
+    /**
+     * Removes a word from the index.
+     *
+     * @param word the word
+     */
+    void remove(String word) {
+        for (String trigram : trigrams(word)) {
+            Set<String> words = wordsByTrigram.get(trigram);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    wordsByTrigram.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indexed words containing a keyword.
+     *
+     * @param keyword a keyword of at least {@link #GRAM} characters
+     * @return the words containing the keyword
+     */
+    List<String> wordsContaining(String keyword) {
+        assert keyword.length() >= GRAM : "Keyword should have at least one trigram";
+        List<Set<String>> sets = new ArrayList<>();
+        for (String trigram : trigrams(keyword)) {
+            Set<String> words = wordsByTrigram.get(trigram);
+            if (words == null) {
+                return new ArrayList<>();
+            }
+            sets.add(words);
+        }
+
+        sets.sort(Comparator.comparingInt(Set::size));
+        List<String> words = new ArrayList<>();
+        for (String candidate : sets.get(0)) {
+            if (candidate.contains(keyword)) {
+                words.add(candidate);
+            }
+        }
+        return words;
+    }
+
+    private static Set<String> trigrams(String word) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            trigrams.add(word.substring(i, i + GRAM));
+        }
+        return trigrams;
+    }
+}
@@ -6,8 +6,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import instruction.SortInstruction;
-import task.Deadline;
-import task.Event;
 import task.Task;
 import util.ShrekException;
 
@@ -67,7 +65,9 @@ public class Ui {
                     .append(i + 1)
                     .append(": ")
                     .append(tasks.get(i))
-                    .append("\n");
+                    .append(" (#")
+                    .append(tasks.get(i).getId())
+                    .append(")\n");
         }
         return sb.toString();
     }
@@ -94,80 +94,114 @@ public class Ui {
     /**
      * Returns a confirmation message when a task is successfully deleted.
      *
-     * @param tasks the task list after deletion
-     * @param t     the task that was deleted
+     * @param t    the task that was deleted
+     * @param size the number of tasks left in the list
      * @return formatted message string
      */
-    public String printDeleteTask(ArrayList<Task> tasks, Task t) {
+    public String printDeleteTask(Task t, int size) {
         return "One onion has been YEETED! (task removed)\n"
                 + "  " + t + "\n"
-                + "Now you have " + tasks.size() + " tasks in the list.";
+                + "Now you have " + size + " tasks in the list.";
     }
 
     /**
-     * Returns a formatted string of tasks that occur on a specific date using streams.
+     * Returns a formatted string of the tasks that occur on a specific date.
      *
-     * @param tasks the list of tasks to filter by date
-     * @param date  the date to filter tasks by
+     * @param tasks the tasks on the date, in the order to show them
+     * @param date  the date the tasks are on
      * @return formatted message string
      */
-    public String printTasksOnDate(ArrayList<Task> tasks, LocalDate date) {
-        List<String> matchingTasks = tasks.stream()
-                .filter(task -> isTaskOnDate(task, date))
-                .map(task -> "  " + task + "\n")
-                .collect(Collectors.toList());
-
-        if (matchingTasks.isEmpty()) {
+    public String printTasksOnDate(List<Task> tasks, LocalDate date) {
+        if (tasks.isEmpty()) {
             return "No onions (tasks) on " + date + "!";
         }
+        return "Tasks on " + date + ":\n" + formatLines(tasks);
+    }
 
-        return "Tasks on " + date + ":\n" + String.join("", matchingTasks);
+    /**
+     * Returns a formatted string of the tasks that occur between two dates.
+     *
+     * @param tasks the tasks in the range, in the order to show them
+     * @param first the first day of the range
+     * @param last  the last day of the range
+     * @return formatted message string
+     */
+    public String printTasksBetween(List<Task> tasks, LocalDate first, LocalDate last) {
+        if (tasks.isEmpty()) {
+            return "No onions (tasks) between " + first + " and " + last + "!";
+        }
+        return "Tasks between " + first + " and " + last + ":\n" + formatLines(tasks);
     }
 
     /**
-     * Returns a boolean if task is on or during date.
+     * Returns a formatted string of the upcoming tasks.
+     *
+     * @param tasks the upcoming tasks, soonest first
+     * @return formatted message string
      */
-    private boolean isTaskOnDate(Task task, LocalDate date) {
-        if (task instanceof Deadline d) {
-            // Extract just the date part from LocalDateTime for comparison
-            return d.getBy().toLocalDate().equals(date);
-        } else if (task instanceof Event e) {
-            LocalDate startDate = e.getFrom().toLocalDate();
-            LocalDate endDate = e.getTo().toLocalDate();
-            return (date.isEqual(startDate) || date.isAfter(startDate))
-                    && (date.isEqual(endDate) || date.isBefore(endDate));
+    public String printUpcoming(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return "No onions (tasks) coming up! Time to relax in the swamp.";
         }
-        return false;
+        return "Next onions (tasks) coming up:\n" + formatLines(tasks);
+    }
+
+    private String formatLines(List<Task> tasks) {
+        return tasks.stream()
+                .map(task -> "  " + task + "\n")
+                .collect(Collectors.joining());
     }
 
     /**
-     * Returns a formatted string of tasks that match the search keyword.
+     * Returns a formatted string of tasks that match the search keywords.
      *
-     * @param tasks the list of tasks to search through
-     * @param word  the keyword to search for
+     * @param matches the matching tasks, in list order
+     * @param indices the zero-based position of each matching task in the task list
+     * @param word    the keywords searched for
      * @return formatted message string
      */
-    public String printFind(ArrayList<Task> tasks, String word) {
+    public String printFind(List<Task> matches, List<Integer> indices, String word) {
+        if (matches.isEmpty()) {
+            return "No matching onions (tasks) for: " + word;
+        }
+
         StringBuilder sb = new StringBuilder();
         sb.append("Matching onions (tasks) with: ")
                 .append(word)
                 .append("\n");
-        boolean isFound = false;
+        for (int i = 0; i < matches.size(); i++) {
+            sb.append("  ")
+                    .append(indices.get(i) + 1)
+                    .append(". ")
+                    .append(matches.get(i))
+                    .append("\n");
+        }
+        return sb.toString();
+    }
 
-        for (int i = 0; i < tasks.size(); i++) {
-            Task t = tasks.get(i);
-            if (t.getDescription().toLowerCase().contains(word.toLowerCase())) {
-                sb.append("  ")
-                        .append(i + 1)
-                        .append(". ")
-                        .append(t)
-                        .append("\n");
-                isFound = true;
-            }
+    /**
+     * Returns a formatted string of the best matches for a ranked search, with their task numbers.
+     *
+     * @param matches the matching tasks, best first
+     * @param indices the zero-based task number of each match
+     * @param query   the words searched for
+     * @return formatted message string
+     */
+    public String printSearch(List<Task> matches, List<Integer> indices, String query) {
+        if (matches.isEmpty()) {
+            return "No onions (tasks) worth digging up for: " + query;
         }
 
-        if (!isFound) {
-            return "No matching onions (tasks) for: " + word;
+        StringBuilder sb = new StringBuilder();
+        sb.append("Best onions (tasks) for: ")
+                .append(query)
+                .append("\n");
+        for (int i = 0; i < matches.size(); i++) {
+            sb.append("  ")
+                    .append(indices.get(i) + 1)
+                    .append(". ")
+                    .append(matches.get(i))
+                    .append("\n");
         }
         return sb.toString();
     }
@@ -192,7 +226,9 @@ public class Ui {
                     .append(i + 1)
                     .append(": ")
                     .append(tasks.get(i))
-                    .append("\n");
+                    .append(" (#")
+                    .append(tasks.get(i).getId())
+                    .append(")\n");
         }
 
         return sb.toString();
@@ -204,16 +240,20 @@ public class Ui {
      * @return command string
      */
     public String showHelp() {
-        return "Available commands:\n"
+        return "Available commands (any unambiguous start of a command works, e.g. dead, ev, un):\n"
                 + "* todo <description>\n"
                 + "* deadline <description> /by yyyy-MM-dd HH:mm\n"
                 + "* event <description> /from yyyy-MM-dd HH:mm /to yyyy-MM-dd HH:mm\n"
+                + "  (dates may also be phrases like tomorrow 5pm)\n"
                 + "* list\n"
-                + "* mark/unmark <number>\n"
-                + "* delete <number>\n"
-                + "* find <keyword>\n"
+                + "* mark/unmark <number or #id>\n"
+                + "* delete <number or #id>\n"
+                + "* find <keyword> (~<keyword> allows typos)\n"
+                + "* search <words> (best matches first)\n"
                 + "* sort description/date/type\n"
                 + "* ondate yyyy-MM-dd\n"
+                + "* between yyyy-MM-dd yyyy-MM-dd\n"
+                + "* next <number>\n"
                 + "* bye";
     }
 
@@ -2,6 +2,7 @@ package util;
 
 /**
  * Enum representing all valid commands supported by the Shrek application.
+ * A command may be typed in any case, and shortened to any prefix that no other command shares.
  */
 public enum Command {
     TODO,
@@ -11,12 +12,33 @@ public enum Command {
     MARK,
     UNMARK,
     DELETE,
-    BYE,
+    BYE(false),
     ONDATE,
+    BETWEEN,
+    NEXT,
     FIND,
+    SEARCH,
     SORT,
     HELP;
 
+    private static final Node ROOT = new Node();
+
+    static {
+        for (Command command : values()) {
+            ROOT.add(command);
+        }
+    }
+
+    private final boolean isAbbreviable;
+
+    Command() {
+        this(true);
+    }
+
+    Command(boolean isAbbreviable) {
+        this.isAbbreviable = isAbbreviable;
+    }
+
     /**
      * Converts a string input to the corresponding Command enum value.
      *
@@ -25,10 +47,63 @@ public enum Command {
      * @throws ShrekException if the input does not match any valid command
      */
     public static Command fromString(String input) throws ShrekException {
-        try {
-            return Command.valueOf(input.toUpperCase());
-        } catch (IllegalArgumentException e) {
+        Command command = lookup(input, 0, input.length());
+        if (command == null) {
             throw new ShrekException("I don't speak your language. I don't understand: " + input);
         }
+        return command;
+    }
+
+    /**
+     * Finds the command a word names, in any case, or that the word is an unambiguous prefix of.
+     * Exiting has to be typed out in full.
+     *
+     * @param text  the text holding the word
+     * @param start the start of the word
+     * @param end   the end of the word, exclusive
+     * @return the command, or null if the word names none or could be more than one
+     */
+    public static Command lookup(CharSequence text, int start, int end) {
+        Node node = ROOT;
+        for (int i = start; i < end && node != null; i++) {
+            node = node.next(text.charAt(i));
+        }
+        if (node == null || node == ROOT) {
+            return null;
+        }
+        if (node.command != null) {
+            return node.command;
+        }
+        return node.isAmbiguous || !node.only.isAbbreviable ? null : node.only;
+    }
+
+    /**
+     * A node of the trie over command names, reached by one prefix.
+     */
+    private static final class Node {
+        private final Node[] next = new Node[26];
+        private Command command; // the command named exactly by the prefix
+        private Command only; // a command starting with the prefix
+        private boolean isAmbiguous; // whether more than one command starts with it
+
+        private void add(Command added) {
+            Node node = this;
+            for (char c : added.name().toCharArray()) {
+                int letter = c - 'A';
+                if (node.next[letter] == null) {
+                    node.next[letter] = new Node();
+                }
+                node = node.next[letter];
+                node.isAmbiguous |= node.only != null;
+                node.only = added;
+            }
+            node.command = added;
+        }
+
+        private Node next(char c) {
+            char upper = c < 128 ? c : Character.toUpperCase(c);
+            int letter = (upper >= 'a' && upper <= 'z' ? upper - 'a' : upper - 'A');
+            return letter >= 0 && letter < next.length ? next[letter] : null;
+        }
     }
 }
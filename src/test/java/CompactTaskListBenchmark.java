@@ -0,0 +1,68 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import task.CompactTaskList;
+import task.Deadline;
+import task.Event;
+import task.Task;
+import task.TaskList;
+import task.Todo;
+import util.ShrekException;
+
+/**
+ * Compares the heap a task list keeps as task objects with the heap of a {@link CompactTaskList}
+ * holding the same mix of todos, deadlines and events, each with its own description.
+ * Run with {@code ./gradlew benchmark -Pbench=CompactTaskListBenchmark}; pass a task count to change it.
+ */
+public class CompactTaskListBenchmark {
+    private static final int DEFAULT_TASKS = 2_000_000;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optionally, the number of tasks
+     * @throws ShrekException never, as every generated event ends after it starts
+     */
+    public static void main(String[] args) throws ShrekException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TASKS;
+        System.out.println("Tasks: " + count);
+
+        long before = usedHeap();
+        TaskList objects = new TaskList(generate(count));
+        long objectBytes = usedHeap() - before;
+        System.out.printf("task objects    %7.1f MB  %5.1f bytes per task (%d)%n",
+                objectBytes / 1e6, (double) objectBytes / count, objects.size());
+        objects = null;
+
+        before = usedHeap();
+        long start = System.nanoTime();
+        TaskList compact = new CompactTaskList(generate(count));
+        long loadNanos = System.nanoTime() - start;
+        long compactBytes = usedHeap() - before;
+        System.out.printf("compact columns %7.1f MB  %5.1f bytes per task (%d), built in %d ms%n",
+                compactBytes / 1e6, (double) compactBytes / count, compact.size(), loadNanos / 1_000_000);
+    }
+
+    private static ArrayList<Task> generate(int count) throws ShrekException {
+        ArrayList<Task> tasks = new ArrayList<>(count);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime time = base.plusMinutes(i * 7L);
+            String description = "swamp chore " + i;
+            tasks.add(switch (i % 3) {
+            case 0 -> new Todo(description);
+            case 1 -> new Deadline(description, time);
+            default -> new Event(description, time, time.plusHours(2));
+            });
+        }
+        return tasks;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,73 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import storage.Storage;
+import task.Task;
+
+/**
+ * Shows the heap that sharing equal descriptions saves: loads a large text file in which a few
+ * descriptions repeat, as with daily or weekly tasks, and measures the heap the tasks keep.
+ * It then adds the unshared copy of each description that every task would otherwise hold.
+ * The file is large enough for the parallel loader, so the load time includes the
+ * pool being used from every core.
+ * Run with {@code ./gradlew benchmark -Pbench=DescriptionPoolBenchmark}; pass a task count
+ * and a number of distinct descriptions as arguments to change the mix.
+ */
+public class DescriptionPoolBenchmark {
+    private static final int DEFAULT_TASKS = 1_000_000;
+    private static final int DEFAULT_DISTINCT = 500;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optionally, the number of tasks and the number of distinct descriptions
+     * @throws IOException if the generated file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TASKS;
+        int distinct = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_DISTINCT;
+        File file = generate(count, distinct);
+        System.out.println("Tasks: " + count + ", distinct descriptions: " + distinct);
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        ArrayList<Task> tasks = new Storage(file.getPath()).load();
+        long loadNanos = System.nanoTime() - start;
+        long afterLoad = usedHeap();
+        long shared = afterLoad - before;
+
+        ArrayList<String> copies = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            // a copy with its own characters, as each task held before the pool
+            copies.add(String.valueOf(task.getDescription().toCharArray()));
+        }
+        long unshared = usedHeap() - afterLoad;
+
+        System.out.printf("load %6d ms  heap with shared descriptions %6.1f MB  unshared copies add %6.1f MB%n",
+                loadNanos / 1_000_000, shared / 1e6, unshared / 1e6);
+        System.out.printf("saved %.1f bytes per task (%d, %d kept)%n",
+                (double) unshared / tasks.size(), tasks.size(), copies.size());
+    }
+
+    private static File generate(int count, int distinct) throws IOException {
+        File file = new File("build/benchmark/shrek-repeated.txt");
+        file.getParentFile().mkdirs();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("T | ").append(i % 2).append(" | weekly swamp chore number ").append(i % distinct).append('\n');
+        }
+        Files.writeString(file.toPath(), sb, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
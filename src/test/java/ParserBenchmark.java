@@ -0,0 +1,119 @@
+import java.lang.management.ManagementFactory;
+
+import instruction.AddInstruction;
+import instruction.DeleteInstruction;
+import instruction.FindInstruction;
+import instruction.Instruction;
+import instruction.ListInstruction;
+import instruction.MarkInstruction;
+import instruction.NextInstruction;
+import parser.Parser;
+import task.Deadline;
+import task.Event;
+import task.TaskRef;
+import task.Todo;
+import util.Command;
+import util.ShrekException;
+
+/**
+ * Compares the parser's single-pass scan with the regex parsing it replaced, which trimmed
+ * the input, replaced whitespace runs, split off the command word and split the arguments again
+ * at each marker. Both build the same instructions; reports time and bytes allocated per command
+ * over a mix of commands.
+ * Run with {@code ./gradlew benchmark -Pbench=ParserBenchmark}; pass a command count as the first argument.
+ */
+public class ParserBenchmark {
+    private static final int DEFAULT_COMMANDS = 2_000_000;
+    private static final int ROUNDS = 5;
+    private static final String[] INPUTS = {
+        "todo buy onions for the swamp",
+        "deadline submit ogre report /by 2025-03-01 18:00",
+        "event donkey karaoke night /from 2025-03-02 20:00 /to 2025-03-02 23:00",
+        "mark 3",
+        "unmark #42",
+        "delete 7",
+        "find onion  swamp",
+        "list",
+        "next 5",
+        "  Todo\tclean   the swamp ",
+    };
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optionally, the number of commands to parse per round
+     * @throws ShrekException if a command fails to parse
+     */
+    public static void main(String[] args) throws ShrekException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_COMMANDS;
+        System.out.println("Commands: " + count);
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean isLast = round == ROUNDS - 1;
+            measure("regex", count, isLast, ParserBenchmark::parseWithRegex);
+            measure("scan", count, isLast, Parser::parse);
+        }
+    }
+
+    /**
+     * Either way of parsing a command.
+     */
+    private interface Front {
+        Instruction parse(String input) throws ShrekException;
+    }
+
+    private static void measure(String name, int count, boolean isReported, Front front) throws ShrekException {
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < count; i++) {
+            sink += front.parse(INPUTS[i % INPUTS.length]).hashCode() & 1;
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - startBytes;
+        if (isReported) {
+            System.out.printf("%-6s %7.1f ns/op  %7.1f B/op  (%d)%n", name,
+                    (double) nanos / count, (double) bytes / count, sink);
+        }
+    }
+
+    /**
+     * The old parser, for the commands in the mix: regex cleanup and splits, then the same instructions.
+     */
+    private static Instruction parseWithRegex(String input) throws ShrekException {
+        String cleanedInput = input.trim().replaceAll("\\s+", " ");
+        String[] parts = cleanedInput.split(" ", 2);
+        String arguments = parts.length > 1 ? parts[1] : "";
+        Command command = Command.valueOf(parts[0].trim().toLowerCase().toUpperCase());
+        return switch (command) {
+        case TODO -> new AddInstruction(new Todo(arguments.trim()));
+        case DEADLINE -> {
+            String[] deadlineParts = arguments.split("/by", 2);
+            yield new AddInstruction(new Deadline(deadlineParts[0].trim(), deadlineParts[1].trim()));
+        }
+        case EVENT -> {
+            String[] eventParts = arguments.split("/from", 2);
+            String[] timeParts = eventParts[1].split("/to", 2);
+            yield new AddInstruction(new Event(eventParts[0].trim(), timeParts[0].trim(), timeParts[1].trim()));
+        }
+        case MARK, UNMARK -> new MarkInstruction(parseTaskRef(arguments), command == Command.MARK);
+        case DELETE -> new DeleteInstruction(parseTaskRef(arguments));
+        case FIND -> new FindInstruction(String.join(" ", arguments.trim().split("\\s+")).trim());
+        case NEXT -> new NextInstruction(Integer.parseInt(arguments.trim()));
+        case LIST -> new ListInstruction();
+        default -> throw new ShrekException("Not in the benchmark mix: " + input);
+        };
+    }
+
+    private static TaskRef parseTaskRef(String argument) {
+        String trimmed = argument.trim();
+        if (trimmed.startsWith("#")) {
+            return TaskRef.ofId(Long.parseLong(trimmed.substring(1)));
+        }
+        return TaskRef.ofIndex(Integer.parseInt(trimmed) - 1);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -1,3 +1,4 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -6,32 +7,52 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import instruction.AddInstruction;
+import instruction.BetweenInstruction;
 import instruction.DeleteInstruction;
 import instruction.ExitInstruction;
 import instruction.FindInstruction;
 import instruction.Instruction;
 import instruction.ListInstruction;
 import instruction.MarkInstruction;
+import instruction.NextInstruction;
 import instruction.OnDateInstruction;
+import instruction.SearchInstruction;
 import instruction.SortInstruction;
+import instruction.SortInstruction.SortCriteria;
 import parser.Parser;
 import shrek.Shrek;
+import storage.FormatConverter;
 import storage.Storage;
+import task.CompactTaskList;
+import task.ConcurrentTaskList;
+import task.DateTimeCodec;
 import task.Deadline;
 import task.Event;
 import task.Task;
 import task.TaskList;
+import task.TaskRef;
 import task.Todo;
 import ui.Ui;
+import util.Command;
 import util.ShrekException;
 
 /**
@@ -49,6 +70,7 @@ public class ShrekTest {
         if (testFile.exists()) {
             testFile.delete();
         }
+        deleteSideFiles();
         testFile.getParentFile().mkdirs();
     }
 
@@ -57,6 +79,25 @@ public class ShrekTest {
         if (testFile.exists()) {
             testFile.delete();
         }
+        deleteSideFiles();
+    }
+
+    /**
+     * Deletes the journals, snapshots and shards that storage keeps next to the test file.
+     */
+    private void deleteSideFiles() {
+        File[] sideFiles = testFile.getParentFile().listFiles((dir, name) -> name.startsWith(testFile.getName() + "."));
+        if (sideFiles != null) {
+            for (File f : sideFiles) {
+                File[] children = f.listFiles();
+                if (children != null) {
+                    for (File child : children) {
+                        child.delete();
+                    }
+                }
+                f.delete();
+            }
+        }
     }
 
     /**
@@ -202,6 +243,13 @@ public class ShrekTest {
         assertInstanceOf(OnDateInstruction.class, instr);
     }
 
+    @Test
+    public void testParseBetweenCommand() throws ShrekException {
+        assertInstanceOf(BetweenInstruction.class, Parser.parse("between 2025-01-01 2025-01-31"));
+        assertThrows(ShrekException.class, () -> Parser.parse("between 2025-01-01"));
+        assertThrows(ShrekException.class, () -> Parser.parse("between 2025-01-31 2025-01-01"));
+    }
+
     @Test
     public void testParseSortCommand() throws ShrekException {
         Instruction instr = Parser.parse("sort description");
@@ -449,4 +497,1005 @@ public class ShrekTest {
 
         assertEquals(0, tasks.size()); // Should return empty list for new file
     }
+
+    @Test
+    public void testJournalReplay() throws ShrekException {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL);
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+
+        Parser.parse("todo first").execute(list, ui, storage);
+        Parser.parse("todo second").execute(list, ui, storage);
+        Parser.parse("todo third").execute(list, ui, storage);
+        Parser.parse("mark 3").execute(list, ui, storage);
+        Parser.parse("delete 1").execute(list, ui, storage);
+
+        assertEquals(0, testFile.length()); // base file untouched, only the journal grew
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL).load();
+        assertEquals(2, reloaded.size());
+        assertEquals("[T][ ] second", reloaded.get(0).toString());
+        assertEquals("[T][X] third", reloaded.get(1).toString());
+    }
+
+    @Test
+    public void testJournalClearedBySave() throws ShrekException {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL);
+        TaskList list = new TaskList(storage.load());
+        Parser.parse("todo journaled").execute(list, new Ui(), storage);
+        assertTrue(new File(TEST_FILE_PATH + ".journal.1").exists());
+
+        storage.save(list.getAllTasks());
+        assertTrue(!new File(TEST_FILE_PATH + ".journal.1").exists());
+        assertEquals(1, new Storage(TEST_FILE_PATH).load().size());
+    }
+
+    @Test
+    public void testBackgroundCompaction() throws ShrekException {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL);
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+        Parser.parse("todo before compaction").execute(list, ui, storage);
+
+        storage.compact(list);
+        Parser.parse("todo during compaction").execute(list, ui, storage);
+        Parser.parse("mark 1").execute(list, ui, storage);
+        storage.awaitCompaction();
+
+        assertTrue(testFile.length() > 0); // snapshot has replaced the data file
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL).load();
+        assertEquals(2, reloaded.size());
+        assertEquals("[T][X] before compaction", reloaded.get(0).toString());
+        assertEquals("[T][ ] during compaction", reloaded.get(1).toString());
+    }
+
+    @Test
+    public void testInterruptedCompactionRecovery() throws Exception {
+        // a completed snapshot that was not yet switched in, with the journal it already contains
+        Files.writeString(new File(TEST_FILE_PATH + ".snapshot.1").toPath(), "T | 0 | snapped\n");
+        Files.writeString(new File(TEST_FILE_PATH + ".journal.1").toPath(), "+ | T | 0 | snapped\n");
+        Files.writeString(new File(TEST_FILE_PATH + ".journal.2").toPath(), "M | 0\n");
+
+        ArrayList<Task> tasks = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL).load();
+        assertEquals(1, tasks.size());
+        assertEquals("[T][X] snapped", tasks.get(0).toString());
+        assertTrue(!new File(TEST_FILE_PATH + ".snapshot.1").exists());
+    }
+
+    @Test
+    public void testWriteBehindDurableOnBye() throws ShrekException {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.WRITE_BEHIND);
+        storage.setCommitWindow(10_000, 1_000); // only "bye" can end this group
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+        for (int i = 1; i <= 50; i++) {
+            Parser.parse("todo task " + i).execute(list, ui, storage);
+        }
+        Parser.parse("mark 50").execute(list, ui, storage);
+        Parser.parse("bye").execute(list, ui, storage);
+
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL).load();
+        assertEquals(50, reloaded.size());
+        assertEquals("[T][X] task 50", reloaded.get(49).toString());
+    }
+
+    @Test
+    public void testParallelLoadKeepsOrderAndLineNumbers() throws Exception {
+        int lineCount = 200_000; // large enough to be memory-mapped and split into chunks
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= lineCount; i++) {
+            sb.append(i == 150_000 ? "rotten onion" : "T | " + (i % 2) + " | onion number " + i).append("\n");
+        }
+        Files.writeString(testFile.toPath(), sb.toString());
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        ArrayList<Task> tasks;
+        try {
+            tasks = new Storage(TEST_FILE_PATH).load();
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        assertEquals(lineCount - 1, tasks.size());
+        for (int i = 1; i < lineCount; i++) {
+            int number = i < 150_000 ? i : i + 1;
+            assertEquals("onion number " + number, tasks.get(i - 1).getDescription());
+        }
+        assertTrue(out.toString().contains("Skipping corrupted line 150000:"));
+    }
+
+    @Test
+    public void testBinaryFormatRoundTrip() throws Exception {
+        String text = "T | 0 | read book\n"
+                + "D | 1 | return book | 2025-01-01 14:30\n"
+                + "E | 0 | onion festival \u00e9t\u00e9 | 2025-12-05 14:00 | 2025-12-06 16:00\n";
+        Files.writeString(testFile.toPath(), text);
+        String binaryPath = TEST_FILE_PATH + ".bin";
+        String textPath = TEST_FILE_PATH + ".txt";
+
+        assertEquals(3, FormatConverter.convert(TEST_FILE_PATH, binaryPath, Storage.Format.BINARY));
+        assertTrue(new File(binaryPath).length() < text.length());
+        ArrayList<Task> loaded = new Storage(binaryPath).load();
+        assertEquals("[D][X] return book (by: Jan 1 2025, 2:30PM)", loaded.get(1).toString());
+
+        FormatConverter.convert(binaryPath, textPath, Storage.Format.TEXT);
+        assertEquals(text, Files.readString(new File(textPath).toPath()));
+    }
+
+    @Test
+    public void testRecordModeUpdatesInPlace() throws ShrekException {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD);
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+        Parser.parse("todo first").execute(list, ui, storage);
+        Parser.parse("deadline second /by 2025-01-01 14:00").execute(list, ui, storage);
+        Parser.parse("todo third").execute(list, ui, storage);
+
+        long length = testFile.length();
+        Parser.parse("mark 2").execute(list, ui, storage);
+        Parser.parse("delete 1").execute(list, ui, storage);
+        assertEquals(length, testFile.length()); // status byte and tombstone written in place
+        assertTrue(!new File(TEST_FILE_PATH + ".journal.1").exists());
+
+        Parser.parse("todo fourth").execute(list, ui, storage);
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD).load();
+        assertEquals(3, reloaded.size());
+        assertTrue(reloaded.get(0).toString().startsWith("[D][X] second"));
+        assertEquals("[T][ ] third", reloaded.get(1).toString());
+        assertEquals("[T][ ] fourth", reloaded.get(2).toString());
+    }
+
+    @Test
+    public void testShardedStorage() throws Exception {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.SHARDED);
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+        Parser.parse("todo first").execute(list, ui, storage);
+        Parser.parse("deadline christmas card /by 2025-12-25 10:00").execute(list, ui, storage);
+        Parser.parse("event long onion fair /from 2025-11-30 09:00 /to 2025-12-26 18:00").execute(list, ui, storage);
+        Parser.parse("deadline tax /by 2026-01-15 12:00").execute(list, ui, storage);
+        Parser.parse("todo second").execute(list, ui, storage);
+
+        File shardDir = new File(TEST_FILE_PATH + ".shards");
+        File december = new File(shardDir, "D-2025-12.txt");
+        long decemberModified = december.lastModified();
+        Thread.sleep(20);
+        Parser.parse("mark 5").execute(list, ui, storage);
+        Parser.parse("delete 4").execute(list, ui, storage);
+        assertEquals(decemberModified, december.lastModified()); // untouched shard not rewritten
+        assertTrue(!new File(shardDir, "D-2026-01.txt").exists());
+
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.SHARDED).load();
+        assertEquals(4, reloaded.size());
+        assertEquals("[T][ ] first", reloaded.get(0).toString());
+        assertEquals("[T][X] second", reloaded.get(3).toString());
+
+        List<Task> onChristmas = new TaskList(reloaded).getTasksOnDate(LocalDate.of(2025, 12, 25));
+        assertEquals(2, onChristmas.size());
+        assertInstanceOf(Event.class, onChristmas.get(0));
+        assertInstanceOf(Deadline.class, onChristmas.get(1));
+    }
+
+    @Test
+    public void testStableIdsSurviveDeletes() throws ShrekException {
+        Storage storage = new Storage(TEST_FILE_PATH);
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+        for (int i = 1; i <= 5; i++) {
+            Parser.parse("todo task " + i).execute(list, ui, storage);
+        }
+
+        Parser.parse("delete #3").execute(list, ui, storage);
+        Parser.parse("delete #4").execute(list, ui, storage);
+        Parser.parse("mark #5").execute(list, ui, storage);
+        Parser.parse("unmark 1").execute(list, ui, storage);
+        assertEquals(2, list.indexOf(5));
+        assertThrows(ShrekException.class, () -> Parser.parse("delete #3").execute(list, ui, storage));
+
+        TaskList reloaded = new TaskList(new Storage(TEST_FILE_PATH).load());
+        assertEquals("[T][ ] task 2", reloaded.get(reloaded.indexOf(2)).toString());
+        assertEquals("[T][X] task 5", reloaded.get(reloaded.indexOf(5)).toString());
+        Parser.parse("todo task 6").execute(reloaded, ui, storage);
+        assertEquals(6, reloaded.get(3).getId());
+    }
+
+    @Test
+    public void testTaskListTombstonesKeepPositions() throws ShrekException {
+        TaskList list = new TaskList();
+        ArrayList<Task> expected = new ArrayList<>();
+        Random random = new Random(42);
+        for (int round = 0; round < 2_000; round++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                Task task = new Todo("task " + round);
+                list.add(task);
+                expected.add(task);
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            }
+            int probe = random.nextInt(expected.size() + 1);
+            if (probe < expected.size()) {
+                assertEquals(expected.get(probe), list.get(probe));
+                assertEquals(probe, list.indexOf(expected.get(probe).getId()));
+            }
+        }
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected, list.getAllTasks());
+    }
+
+    @Test
+    public void testHashCodeAgreesWithEquals() throws ShrekException {
+        assertEquals(new Todo("read book").hashCode(), new Todo("read book").hashCode());
+        assertEquals(new Deadline("return book", "2025-01-01 14:00").hashCode(),
+                new Deadline("return book", "2025-01-01 14:00").hashCode());
+        assertEquals(new Event("fair", "2025-01-01 14:00", "2025-01-02 14:00").hashCode(),
+                new Event("fair", "2025-01-01 14:00", "2025-01-02 14:00").hashCode());
+
+        TaskList list = new TaskList();
+        list.add(new Deadline("return book", "2025-01-01 14:00"));
+        list.add(new Todo("return book"));
+        assertTrue(list.hasDuplicate(new Deadline("return book", "2025-01-01 14:00")));
+        assertTrue(!list.hasDuplicate(new Deadline("return book", "2025-01-02 14:00")));
+        assertTrue(!list.hasDuplicate(new Event("return book", "2025-01-01 14:00", "2025-01-01 15:00")));
+
+        list.remove(1);
+        assertTrue(!list.hasDuplicate(new Todo("return book"))); // index follows removals
+    }
+
+    @Test
+    public void testTimeIndexMatchesScan() throws ShrekException {
+        TaskList list = new TaskList();
+        Random random = new Random(7);
+        LocalDate base = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = base.plusDays(random.nextInt(120)).atTime(random.nextInt(24), 0);
+            if (random.nextBoolean()) {
+                list.add(new Deadline("deadline " + i, start));
+            } else {
+                list.add(new Event("event " + i, start, start.plusHours(random.nextInt(24 * 20))));
+            }
+            if (i % 50 == 0) {
+                list.getTasksOnDate(base); // build the index early so later changes update it
+            }
+            if (i % 7 == 0) {
+                list.remove(random.nextInt(list.size()));
+            }
+        }
+
+        for (int query = 0; query < 100; query++) {
+            LocalDate first = base.plusDays(random.nextInt(130) - 5);
+            LocalDate last = first.plusDays(random.nextInt(10));
+            List<Task> expected = new ArrayList<>();
+            for (Task task : list.getAllTasks()) {
+                for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                    if (task.isOnDate(day)) {
+                        expected.add(task);
+                        break;
+                    }
+                }
+            }
+            expected.sort(Comparator.comparing((Task t) -> t instanceof Deadline d ? d.getBy() : ((Event) t).getFrom())
+                    .thenComparing(Task::getId));
+            assertEquals(expected, list.getTasksBetween(first, last));
+        }
+    }
+
+    @Test
+    public void testFindIntersectsKeywords() throws ShrekException {
+        TaskList list = new TaskList();
+        list.add(new Todo("read book"));
+        list.add(new Todo("return Book to library"));
+        list.add(new Todo("book a table"));
+        list.add(new Todo("read the news"));
+
+        assertEquals(3, list.find("BOOK").size());
+        assertEquals(List.of(list.get(0)), list.find("book read"));
+        assertEquals(List.of(list.get(1)), list.find("boo brar"));
+        assertTrue(list.find("book news").isEmpty());
+
+        list.remove(0);
+        list.add(new Todo("read a bookmark"));
+        assertEquals(List.of(list.get(3)), list.find("read book"));
+
+        String result = new FindInstruction("read book").execute(list, new Ui(), new Storage(TEST_FILE_PATH));
+        assertTrue(result.contains("4. [T][ ] read a bookmark"));
+    }
+
+    @Test
+    public void testTrigramFindMatchesSubstringScan() {
+        TaskList list = new TaskList();
+        Random random = new Random(3);
+        String[] syllables = {"ho", "me", "work", "om", "ew", "read", "ing", "ok", "bo", "\u00c4"};
+        for (int i = 0; i < 300; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int j = 0; j < 1 + random.nextInt(6); j++) {
+                description.append(syllables[random.nextInt(syllables.length)]);
+                description.append(random.nextInt(4) == 0 ? " " : "");
+            }
+            list.add(new Todo(description.toString().trim() + " " + i));
+        }
+
+        for (String query : new String[] {"omew", "homework", "ew", "o", "ING", "kbo", "\u00e4", "zzz", "work 1"}) {
+            List<Task> expected = new ArrayList<>();
+            for (Task task : list.getAllTasks()) {
+                boolean isMatch = true;
+                for (String keyword : query.toLowerCase().split(" ")) {
+                    isMatch &= task.getDescription().toLowerCase().contains(keyword);
+                }
+                if (isMatch) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected, list.find(query), query);
+        }
+    }
+
+    @Test
+    public void testFuzzyFindToleratesTypos() throws ShrekException {
+        TaskList list = new TaskList();
+        list.add(new Todo("finish homework"));
+        list.add(new Todo("home improvements"));
+        list.add(new Todo("read book"));
+        list.add(new Todo("homework review"));
+
+        assertEquals(List.of(list.get(0), list.get(3)), list.find("~homwork"));
+        assertEquals(List.of(list.get(3)), list.find("~homwork review"));
+        assertEquals(List.of(list.get(2)), list.find("~bokk"));
+        assertTrue(list.find("~bkoo").isEmpty());
+        assertEquals(List.of(list.get(0), list.get(3)), list.find("~homewrk"));
+
+        // deleted words stop matching, added ones start
+        list.remove(0);
+        list.remove(2);
+        assertTrue(list.find("~homwork").isEmpty());
+        list.add(new Todo("homework again"));
+        assertEquals(List.of(list.get(2)), list.find("~homwork"));
+
+        // closer tasks first, at most FUZZY_LIMIT of them
+        for (int i = 0; i < 20; i++) {
+            list.add(new Todo("homewrok " + i));
+        }
+        List<Task> matches = list.find("~homework");
+        assertEquals(10, matches.size());
+        assertEquals(list.get(2), matches.get(0));
+
+        String result = new FindInstruction("~bokk").execute(list, new Ui(), new Storage(TEST_FILE_PATH));
+        assertTrue(result.contains("2. [T][ ] read book"));
+    }
+
+    @Test
+    public void testSearchRanksByBm25() throws ShrekException {
+        TaskList list = new TaskList();
+        list.add(new Todo("return book to the library before friday"));
+        list.add(new Todo("read book"));
+        list.add(new Todo("read news"));
+        list.add(new Todo("buy milk"));
+        list.add(new Todo("book book flights"));
+
+        // rarer and repeated words in shorter descriptions rank higher
+        assertEquals(List.of(list.get(1), list.get(2), list.get(4), list.get(0)), list.search("read BOOK", 10));
+        assertEquals(List.of(list.get(1), list.get(2)), list.search("read book", 2));
+        assertEquals(List.of(list.get(4), list.get(1), list.get(0)), list.search("book", 10));
+        assertTrue(list.search("boo", 10).isEmpty());
+
+        // statistics follow adds and deletes
+        list.remove(1);
+        list.add(new Todo("book club"));
+        assertEquals(List.of(list.get(3), list.get(4), list.get(0)), list.search("book", 10));
+
+        assertInstanceOf(SearchInstruction.class, Parser.parse("search read"));
+        assertThrows(ShrekException.class, () -> Parser.parse("search  "));
+        String result = new SearchInstruction("milk").execute(list, new Ui(), new Storage(TEST_FILE_PATH));
+        assertTrue(result.contains("3. [T][ ] buy milk"));
+    }
+
+    @Test
+    public void testSortedViewsMatchStableSort() throws ShrekException {
+        TaskList list = new TaskList();
+        list.getSorted(SortCriteria.DATE);
+        Random random = new Random(5);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 300; i++) {
+            String description = "task " + random.nextInt(20);
+            LocalDateTime time = start.plusHours(random.nextInt(100));
+            switch (random.nextInt(3)) {
+            case 0:
+                list.add(new Todo(description));
+                break;
+            case 1:
+                list.add(new Deadline(description, time));
+                break;
+            default:
+                list.add(new Event(description, time, time.plusHours(1)));
+                break;
+            }
+            if (random.nextInt(4) == 0) {
+                list.remove(random.nextInt(list.size()));
+            }
+        }
+
+        Comparator<Task> byDate = Comparator.comparing((Task t) -> t instanceof Deadline d ? d.getBy()
+                : t instanceof Event e ? e.getFrom() : LocalDateTime.MAX);
+        Comparator<Task> byType = Comparator
+                .comparingInt((Task t) -> t instanceof Deadline ? 1 : t instanceof Event ? 2 : 3)
+                .thenComparing(Task::getDescription);
+        List<Task> expected = new ArrayList<>(list.getAllTasks());
+        expected.sort(Comparator.comparing(Task::getDescription));
+        assertEquals(expected, list.getSorted(SortCriteria.DESCRIPTION));
+        expected = new ArrayList<>(list.getAllTasks());
+        expected.sort(byDate);
+        assertEquals(expected, list.getSorted(SortCriteria.DATE));
+        expected = new ArrayList<>(list.getAllTasks());
+        expected.sort(byType);
+        assertEquals(expected, list.getSorted(SortCriteria.TYPE));
+    }
+
+    @Test
+    public void testUpcomingMatchesScan() throws ShrekException {
+        TaskList list = new TaskList();
+        Random random = new Random(11);
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 0, 0);
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime time = start.plusHours(random.nextInt(24 * 20));
+            if (random.nextBoolean()) {
+                list.add(new Deadline("deadline " + i, time));
+            } else {
+                list.add(new Event("event " + i, time, time.plusHours(random.nextInt(48))));
+            }
+            if (random.nextInt(3) == 0) {
+                list.get(random.nextInt(list.size())).markAsDone();
+            }
+            if (random.nextInt(5) == 0) {
+                list.remove(random.nextInt(list.size()));
+            }
+        }
+        list.add(new Todo("no date"));
+
+        LocalDateTime now = start.plusDays(7);
+        List<Task> expected = new ArrayList<>();
+        for (Task task : list.getAllTasks()) {
+            boolean isUpcoming = task instanceof Deadline d ? !d.getBy().isBefore(now)
+                    : task instanceof Event e && !e.getTo().isBefore(now);
+            if (isUpcoming && !task.isDone()) {
+                expected.add(task);
+            }
+        }
+        expected.sort(Comparator.comparing((Task t) -> t instanceof Deadline d ? d.getBy() : ((Event) t).getFrom())
+                .thenComparing(Task::getId));
+        for (int count : new int[] {1, 20, 1000}) {
+            assertEquals(expected.subList(0, Math.min(count, expected.size())), list.getUpcoming(now, count));
+        }
+
+        assertInstanceOf(NextInstruction.class, Parser.parse("next 20"));
+        assertThrows(ShrekException.class, () -> Parser.parse("next"));
+        assertThrows(ShrekException.class, () -> Parser.parse("next 0"));
+        assertThrows(ShrekException.class, () -> Parser.parse("next soon"));
+    }
+
+    @Test
+    public void testEqualDescriptionsAreShared() throws Exception {
+        Task loaded = Parser.parseTaskFromFile("T | 0 | submit timesheet");
+        Task again = Parser.parseTaskFromFile("#7 | D | 1 | submit timesheet | 2025-01-01 14:00");
+        Task typed = new Todo(new String("submit timesheet"));
+        assertTrue(loaded.getDescription() == again.getDescription());
+        assertTrue(loaded.getDescription() == typed.getDescription());
+        assertEquals(loaded, typed);
+
+        Files.writeString(testFile.toPath(), "T | 0 | standup\nT | 1 | standup\n");
+        ArrayList<Task> tasks = new Storage(TEST_FILE_PATH).load();
+        assertTrue(tasks.get(0).getDescription() == tasks.get(1).getDescription());
+        assertTrue(new TaskList(tasks).hasDuplicate(new Todo("standup")));
+    }
+
+    @Test
+    public void testConcurrentTaskListServesThreads() throws Exception {
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        list.add(new Todo("first"));
+        List<Task> before = list.snapshot();
+        list.add(new Todo("second"));
+        assertEquals(1, before.size());
+        assertEquals(2, list.snapshot().size());
+        assertThrows(UnsupportedOperationException.class, () -> list.snapshot().add(new Todo("third")));
+        assertEquals(List.of(list.get(1)), list.find("second"));
+
+        Shrek shrek = new Shrek(TEST_FILE_PATH, Storage.Mode.JOURNAL, true);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    String added = shrek.getResponse("todo onion " + thread + "-" + i);
+                    String found = shrek.getResponse("find onion " + thread + "-" + i);
+                    shrek.getResponse("list");
+                    if (!added.contains("onion " + thread + "-" + i) || !found.contains("onion " + thread + "-" + i)) {
+                        synchronized (failures) {
+                            failures.add(new AssertionError(added + found));
+                        }
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty());
+        shrek.getResponse("bye");
+
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL).load();
+        assertEquals(200, reloaded.size());
+        assertEquals(200, reloaded.stream().map(Task::getDescription).distinct().count());
+    }
+
+    @Test
+    public void testParserScansIrregularInput() throws ShrekException {
+        TaskList list = new TaskList();
+        Ui ui = new Ui();
+        Storage storage = new Storage(TEST_FILE_PATH);
+        Parser.parse("  DeadLine\t return   book /by  2025-01-01 \t 14:00 ").execute(list, ui, storage);
+        Parser.parse("EVENT meeting /to 2025-12-05 16:00   /from 2025-12-05 14:00").execute(list, ui, storage);
+        assertEquals("[D][ ] return book (by: Jan 1 2025, 2:00PM)", list.get(0).toString());
+        assertEquals("[E][ ] meeting (from: Dec 5 2025, 2:00PM to: Dec 5 2025, 4:00PM)", list.get(1).toString());
+
+        Parser.parse("mark\t#" + list.get(1).getId() + " ").execute(list, ui, storage);
+        assertTrue(list.get(1).isDone());
+        ShrekException missing = assertThrows(ShrekException.class, () -> Parser.parse("mark  \t"));
+        assertEquals("Shrek needs a task number to mark!", missing.getMessage());
+        ShrekException invalid = assertThrows(ShrekException.class, () -> Parser.parse("delete 1 2"));
+        assertEquals("Shrek needs a valid task number!", invalid.getMessage());
+        ShrekException unknown = assertThrows(ShrekException.class, () -> Parser.parse("ToDos book"));
+        assertTrue(unknown.getMessage().endsWith("todos"));
+
+        Task stored = Parser.parseTaskFromFile("#7 | T | 1 | read book | ");
+        assertEquals("[T][X] read book", stored.toString());
+        assertEquals(7, stored.getId());
+        assertThrows(ShrekException.class, () -> Parser.parseTaskFromFile("T | 0 | read book | extra"));
+        assertThrows(ShrekException.class, () -> Parser.parseTaskFromFile("T | 0 |  | "));
+    }
+
+    @Test
+    public void testCommandsAcceptUnambiguousPrefixes() throws ShrekException {
+        assertEquals(Command.DEADLINE, Command.fromString("dead"));
+        assertEquals(Command.EVENT, Command.fromString("Ev"));
+        assertEquals(Command.UNMARK, Command.fromString("un"));
+        assertEquals(Command.SORT, Command.fromString("SORT"));
+        assertEquals(Command.NEXT, Command.lookup("  ne ", 2, 4));
+        assertEquals(null, Command.lookup("de", 0, 2));
+        assertEquals(null, Command.lookup("by", 0, 2));
+        assertEquals(null, Command.lookup("", 0, 0));
+        assertEquals(null, Command.lookup("todos", 0, 5));
+        assertEquals(null, Command.lookup("t\u00f6do", 0, 4));
+        for (Command command : Command.values()) {
+            assertEquals(command, Command.fromString(command.name().toLowerCase()));
+        }
+        ShrekException unknown = assertThrows(ShrekException.class, () -> Command.fromString("b"));
+        assertEquals("I don't speak your language. I don't understand: b", unknown.getMessage());
+
+        assertInstanceOf(AddInstruction.class, Parser.parse("dead report /by 2025-01-01 14:00"));
+        assertInstanceOf(ExitInstruction.class, Parser.parse("BYE"));
+        assertThrows(ShrekException.class, () -> Parser.parse("by"));
+    }
+
+    @Test
+    public void testDateTimeCodecMatchesFormatter() throws ShrekException {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        DateTimeFormatter display = DateTimeFormatter.ofPattern("MMM d yyyy, h:mma").withLocale(Locale.ENGLISH);
+        Random random = new Random(23);
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime time = LocalDateTime.of(random.nextInt(10200) - 100, 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+            assertEquals(time.format(format), DateTimeCodec.format(time));
+            assertEquals(time.format(display), DateTimeCodec.display(time));
+            if (time.getYear() > 0) {
+                assertEquals(time, DateTimeCodec.parse(time.format(format)));
+            }
+            assertEquals(time, DateTimeCodec.fromEpochMinute(DateTimeCodec.toEpochMinute(time)));
+        }
+        for (String text : List.of("2025-02-30 10:00", "2024-02-29 23:59", "0000-01-01 00:00", "2025-1-01 10:00",
+                "2025-01-01 24:00", "2025-01-01T10:00", "2025-01-01 10:0x", "+2025-01-01 10:00")) {
+            String expected;
+            try {
+                expected = LocalDateTime.parse(text, format).toString();
+            } catch (DateTimeParseException e) {
+                expected = "invalid";
+            }
+            String actual;
+            try {
+                actual = DateTimeCodec.parse(text).toString();
+            } catch (DateTimeParseException e) {
+                actual = "invalid";
+            }
+            assertEquals(expected, actual);
+        }
+        assertEquals(LocalDateTime.of(2025, 1, 1, 14, 0), DateTimeCodec.parse("by 2025-01-01 14:00 !", 3, 19));
+
+        Event event = new Event("karaoke", "2025-03-02 20:00", "2025-03-02 23:00");
+        assertEquals("E | 1 | karaoke | 2025-03-02 20:00 | 2025-03-02 23:00", event.toFileFormat(true));
+        event.setId(9);
+        assertEquals("#9 | E | 0 | karaoke | 2025-03-02 20:00 | 2025-03-02 23:00", event.toFileFormatWithId(false));
+    }
+
+    @Test
+    public void testNaturalDatesFallBackAfterStrictFormat() throws ShrekException {
+        TaskList list = new TaskList();
+        Ui ui = new Ui();
+        Storage storage = new Storage(TEST_FILE_PATH);
+        Parser.warmUp();
+        Parser.parse("deadline call donkey /by tomorrow 5pm").execute(list, ui, storage);
+        Parser.parse("event swamp party /to tomorrow 7pm /from tomorrow 5pm").execute(list, ui, storage);
+        LocalDateTime fivePm = LocalDate.now().plusDays(1).atTime(17, 0);
+        assertEquals(fivePm, ((Deadline) list.get(0)).getBy());
+        assertEquals(fivePm, ((Event) list.get(1)).getFrom());
+        assertEquals(fivePm.plusHours(2), ((Event) list.get(1)).getTo());
+
+        ShrekException invalid = assertThrows(ShrekException.class, ()
+                -> Parser.parse("deadline call donkey /by whenever the swamp dries"));
+        assertEquals("Shrek needs the date in *year-month-day HH:mm* format, e.g. 2025-01-01 14:30",
+                invalid.getMessage());
+    }
+
+    @Test
+    public void testExecuteBatchSavesOnceAndReportsLines() throws IOException {
+        Shrek shrek = new Shrek(TEST_FILE_PATH);
+        List<String> responses = shrek.executeBatch(List.of("todo read book", "", "mark two",
+                "todo write essay", "checkpoint", "mark 2", "delete 9", "bye", "todo never runs"));
+        assertEquals(6, responses.size());
+        assertTrue(responses.get(1).startsWith("Line 3: Shrek needs a valid task number!"));
+        assertTrue(responses.get(4).startsWith("Line 7: "));
+        assertEquals(new Ui().showGoodbye(), responses.get(5));
+
+        ArrayList<Task> saved = new Storage(TEST_FILE_PATH).load();
+        assertEquals(2, saved.size());
+        assertTrue(saved.get(1).isDone());
+
+        List<String> script = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            script.add(i % 2 == 0 ? "todo onion " + i : "mark " + (i / 2 + 1));
+        }
+        assertEquals(20000, new Shrek(TEST_FILE_PATH, Storage.Mode.JOURNAL).executeBatch(script).size());
+        assertEquals(10002, new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL).load().size());
+    }
+
+    @Test
+    public void testWriteBehindKeepsFailedGroups() throws Exception {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.WRITE_BEHIND);
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+        File journal = new File(TEST_FILE_PATH + ".journal.1");
+        assertTrue(journal.mkdir()); // the journal cannot be opened for writing
+
+        storage.setCommitWindow(10_000, 1_000);
+        Parser.parse("todo before").execute(list, ui, storage);
+        storage.setCommitWindow(0, 1); // the record queued under the old window is not lost
+        Parser.parse("todo after").execute(list, ui, storage);
+        assertThrows(ShrekException.class, () -> Parser.parse("bye").execute(list, ui, storage));
+
+        assertTrue(journal.delete());
+        Parser.parse("bye").execute(list, ui, storage);
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.JOURNAL).load();
+        assertEquals(2, reloaded.size());
+        assertEquals("before", reloaded.get(0).getDescription());
+        assertEquals("after", reloaded.get(1).getDescription());
+    }
+
+    @Test
+    public void testBinarySnapshotRejectsImpossibleLengths() throws Exception {
+        Files.writeString(testFile.toPath(), "T | 0 | read book\n");
+        String binaryPath = TEST_FILE_PATH + ".bin";
+        FormatConverter.convert(TEST_FILE_PATH, binaryPath, Storage.Format.BINARY);
+        File binary = new File(binaryPath);
+        byte[] valid = Files.readAllBytes(binary.toPath());
+
+        byte[] hugeDescription = valid.clone(); // header, type, one-byte ID, then the description length
+        byte[] length = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        System.arraycopy(length, 0, hugeDescription, 11, length.length);
+        byte[] hugeCount = valid.clone();
+        hugeCount[5] = 0x7F;
+
+        PrintStream originalOut = System.out;
+        for (byte[] corrupted : new byte[][] {hugeDescription, hugeCount}) {
+            Files.write(binary.toPath(), corrupted);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            System.setOut(new PrintStream(out));
+            try {
+                assertTrue(new Storage(binaryPath).load().isEmpty());
+            } finally {
+                System.setOut(originalOut);
+            }
+            assertTrue(out.toString().contains("Corrupted task"), out.toString());
+        }
+    }
+
+    @Test
+    public void testFailedLoadMovesFilesAside() throws Exception {
+        Files.writeString(testFile.toPath(), "T | 0 | read book\nT | 1 | feed donkey\n");
+        FormatConverter.convert(TEST_FILE_PATH, TEST_FILE_PATH, Storage.Format.BINARY);
+        byte[] valid = Files.readAllBytes(testFile.toPath());
+        byte[] corrupted = Arrays.copyOf(valid, valid.length - 2); // the last description runs past the end
+        Files.write(testFile.toPath(), corrupted);
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        Storage storage = new Storage(TEST_FILE_PATH);
+        TaskList list;
+        try {
+            list = new TaskList(storage.load());
+            Parser.parse("todo rescue fiona").execute(list, new Ui(), storage);
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        assertTrue(out.toString().contains(TEST_FILE_PATH + ".corrupt"), out.toString());
+        File aside = new File(TEST_FILE_PATH + ".corrupt", testFile.getName());
+        assertArrayEquals(corrupted, Files.readAllBytes(aside.toPath()));
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH).load();
+        assertEquals(1, reloaded.size());
+        assertEquals("rescue fiona", reloaded.get(0).getDescription());
+    }
+
+    @Test
+    public void testRecordModeFindsRecordsPastDeletions() throws ShrekException {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD);
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+        for (int i = 1; i <= 40; i++) {
+            Parser.parse("todo onion " + i).execute(list, ui, storage);
+        }
+        for (int i = 0; i < 10; i++) {
+            Parser.parse("delete " + (3 + i * 2)).execute(list, ui, storage); // every other task after the second
+        }
+        Parser.parse("delete 30").execute(list, ui, storage); // the last task
+        for (int i = 1; i <= list.size(); i += 3) {
+            Parser.parse("mark " + i).execute(list, ui, storage);
+        }
+        Parser.parse("todo onion 41").execute(list, ui, storage);
+        Parser.parse("mark " + list.size()).execute(list, ui, storage);
+
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD).load();
+        assertEquals(list.size(), reloaded.size());
+        for (int i = 0; i < reloaded.size(); i++) {
+            assertEquals(list.get(i).toString(), reloaded.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testConcurrentTaskListQueriesReadVersions() throws Exception {
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        list.add(new Todo("onion soup"));
+        list.add(new Deadline("onion tax", LocalDateTime.of(2025, 3, 1, 9, 0)));
+        List<Task> sorted = list.getSorted(SortCriteria.DESCRIPTION);
+        list.mark(0, true);
+        assertTrue(list.snapshot().get(0).isDone());
+        list.remove(0);
+        assertEquals(List.of(list.get(0)), list.find("onion"));
+        assertEquals(2, sorted.size()); // the result of an earlier version is not changed
+        assertEquals(0, list.indexOf(2));
+        TaskList plain = new TaskList(new ArrayList<>(list.snapshot()));
+        assertEquals(assertThrows(ShrekException.class, () -> plain.get(3)).getMessage(),
+                assertThrows(ShrekException.class, () -> list.get(3)).getMessage());
+
+        int added = 400;
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            readers.add(new Thread(() -> {
+                int seen = 0;
+                while (seen < added + 1) {
+                    int found = list.find("onion").size();
+                    int onDate = list.getTasksOnDate(LocalDate.of(2025, 3, 1)).size();
+                    if (found < seen || onDate < 1 || list.getSorted(SortCriteria.DATE).isEmpty()) {
+                        synchronized (failures) {
+                            failures.add(new AssertionError("went back from " + seen + " to " + found));
+                        }
+                        return;
+                    }
+                    seen = found;
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        for (int i = 0; i < added; i++) {
+            list.add(new Deadline("onion " + i, LocalDateTime.of(2025, 3, 1, 10, 0)));
+            list.mark(list.size() - 1, true);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertTrue(list.getUpcoming(LocalDateTime.of(2025, 1, 1, 0, 0), 10).size() == 1); // all the rest are done
+    }
+
+    @Test
+    public void testRecordModeDropsUncountedRecordOnOpen() throws ShrekException, IOException {
+        Storage storage = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD);
+        TaskList list = new TaskList(storage.load());
+        Ui ui = new Ui();
+        for (String description : List.of("one", "two", "ghost")) {
+            Parser.parse("todo " + description).execute(list, ui, storage);
+        }
+        // as if the process died after writing the third record but before counting it
+        File file = new File(TEST_FILE_PATH);
+        byte[] data = Files.readAllBytes(file.toPath());
+        data[5] = 0;
+        data[6] = 0;
+        data[7] = 0;
+        data[8] = 2;
+        Files.write(file.toPath(), data);
+
+        Storage reopened = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD);
+        TaskList survivors = new TaskList(reopened.load());
+        assertEquals(2, survivors.size());
+        Parser.parse("todo three").execute(survivors, ui, reopened);
+
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD).load();
+        assertEquals(List.of("one", "two", "three"),
+                reloaded.stream().map(Task::getDescription).toList());
+    }
+
+    @Test
+    public void testConcurrentFindNumbersMatchesFromOneVersion() throws Exception {
+        ConcurrentTaskList list = new ConcurrentTaskList();
+        int count = 300;
+        for (int i = 0; i < count; i++) {
+            list.add(new Todo("onion " + i));
+        }
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            readers.add(new Thread(() -> {
+                try {
+                    Ui ui = new Ui();
+                    while (list.size() > 0) {
+                        new FindInstruction("onion").execute(list, ui, null);
+                        new SearchInstruction("onion").execute(list, ui, null);
+                        for (TaskList.Matches matches : List.of(list.findNumbered("onion"),
+                                list.searchNumbered("onion", 10))) {
+                            // tasks are only deleted from the front, so within one version
+                            // each task sits at its number less the number of the first
+                            for (int i = 0; i < matches.tasks().size(); i++) {
+                                int number = Integer.parseInt(matches.tasks().get(i).getDescription().substring(6));
+                                int first = number - matches.indices().get(i);
+                                int expected = Integer.parseInt(
+                                        matches.tasks().get(0).getDescription().substring(6))
+                                        - matches.indices().get(0);
+                                assertEquals(expected, first);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        for (int i = 0; i < count; i++) {
+            list.remove(0);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+
+    @Test
+    public void testCompactTaskListAnswersLikeTaskList() throws ShrekException {
+        TaskList plain = new TaskList();
+        CompactTaskList compact = new CompactTaskList();
+        Random random = new Random(17);
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 9, 0);
+        for (int i = 0; i < 600; i++) {
+            int kind = random.nextInt(3);
+            String description = "onion " + random.nextInt(50) + (i % 7 == 0 ? " \u00e4 soup" : "");
+            LocalDateTime time = base.plusMinutes(random.nextInt(60 * 24 * 30));
+            LocalDateTime end = time.plusHours(random.nextInt(72));
+            for (TaskList list : List.of(plain, compact)) {
+                list.add(kind == 0 ? new Todo(description)
+                        : kind == 1 ? new Deadline(description, time)
+                        : new Event(description, time, end));
+            }
+            if (i % 5 == 0) {
+                int index = random.nextInt(plain.size());
+                assertEquals(plain.mark(index, true), compact.mark(index, true));
+            }
+            if (i % 3 == 0) {
+                int index = random.nextInt(plain.size());
+                assertEquals(plain.remove(index), compact.remove(index));
+            }
+        }
+        compact.find("onion"); // keep the keyword index up to date through the deletes below
+        for (int i = 0; i < 150; i++) {
+            int index = random.nextInt(plain.size());
+            assertEquals(plain.remove(index).getId(), compact.remove(index).getId()); // compacts the store
+        }
+
+        assertEquals(plain.size(), compact.size());
+        for (int i = 0; i < plain.size(); i++) {
+            assertEquals(plain.get(i).toString(), compact.get(i).toString());
+            assertEquals(i, compact.indexOf(plain.get(i).getId()));
+        }
+        assertEquals(plain.hasDuplicate(plain.get(3)), compact.hasDuplicate(plain.get(3)));
+        assertTrue(compact.hasDuplicate(compact.get(7)));
+        assertTrue(!compact.hasDuplicate(new Todo("no such onion")));
+        assertEquals(plain.find("onion 4"), compact.find("onion 4"));
+        assertEquals(plain.find("~soop"), compact.find("~soop"));
+        assertEquals(plain.search("soup onion", 10), compact.search("soup onion", 10));
+        for (SortCriteria criteria : SortCriteria.values()) {
+            assertEquals(plain.getSorted(criteria), compact.getSorted(criteria));
+        }
+        assertEquals(plain.getTasksBetween(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 9)),
+                compact.getTasksBetween(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 9)));
+        LocalDateTime now = base.plusDays(10).plusSeconds(30);
+        assertEquals(plain.getUpcoming(now, 12), compact.getUpcoming(now, 12));
+        assertEquals(plain.getAllTasks().toString(), compact.getAllTasks().toString());
+        TaskRef missing = TaskRef.ofId(plain.get(0).getId() - 1);
+        assertEquals(assertThrows(ShrekException.class, () -> missing.resolve(plain)).getMessage(),
+                assertThrows(ShrekException.class, () -> missing.resolve(compact)).getMessage());
+    }
+
+    @Test
+    public void testCompactShrekRunsCommands() {
+        Shrek shrek = new Shrek(TEST_FILE_PATH, Storage.Mode.RECORD, false, true);
+        shrek.getResponse("todo read book");
+        shrek.getResponse("deadline return book /by 2025-12-25 10:00");
+        shrek.getResponse("mark 2");
+        assertTrue(shrek.getResponse("todo read book").contains("already"));
+        shrek.getResponse("delete 1");
+        assertTrue(shrek.getResponse("list").contains("1: [D][X] return book"));
+
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD).load();
+        assertEquals(1, reloaded.size());
+        assertEquals("[D][X] return book", reloaded.get(0).toString().substring(0, 18));
+    }
+
+    @Test
+    public void testMappedShrekUpdatesDataFileInPlace() throws Exception {
+        Files.writeString(testFile.toPath(), "T | 0 | read book\nT | 1 | feed donkey\n");
+        Shrek shrek = new Shrek(TEST_FILE_PATH, Storage.Mode.MAPPED, false, false);
+        shrek.getResponse("deadline return book /by 2025-12-25 10:00");
+        shrek.getResponse("mark 3");
+        shrek.getResponse("unmark 2");
+        shrek.getResponse("delete 1");
+        assertTrue(shrek.getResponse("list").contains("1: [T][ ] feed donkey"));
+        assertTrue(shrek.getResponse("find book").contains("[D][X] return book"));
+
+        ArrayList<Task> reloaded = new Storage(TEST_FILE_PATH, Storage.Mode.RECORD).load();
+        assertEquals(2, reloaded.size());
+        assertEquals("[T][ ] feed donkey", reloaded.get(0).toString().substring(0, 18));
+        assertEquals("[D][X] return book", reloaded.get(1).toString().substring(0, 18));
+
+        TaskList mapped = new Storage(TEST_FILE_PATH, Storage.Mode.MAPPED).loadCompact();
+        assertInstanceOf(CompactTaskList.class, mapped);
+        assertEquals(reloaded.toString(), mapped.getAllTasks().toString());
+        assertEquals(1, mapped.indexOf(reloaded.get(1).getId()));
+        assertEquals(1, mapped.getTasksOnDate(LocalDate.of(2025, 12, 25)).size());
+    }
+
+    @Test
+    public void testMappedLoadSetsAsideCorruptedFile() throws Exception {
+        Files.writeString(testFile.toPath(), "T | 0 | read book\nT | 1 | feed donkey\n");
+        FormatConverter.convert(TEST_FILE_PATH, TEST_FILE_PATH, Storage.Format.BINARY);
+        byte[] corrupted = Files.readAllBytes(testFile.toPath());
+        corrupted[corrupted.length - "feed donkey".length() - 2] = 0; // the second ID now goes backwards
+        Files.write(testFile.toPath(), corrupted);
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        TaskList list;
+        try {
+            list = new Storage(TEST_FILE_PATH, Storage.Mode.MAPPED).loadCompact();
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        assertTrue(out.toString().contains(TEST_FILE_PATH + ".corrupt"), out.toString());
+        assertEquals(0, list.size());
+        File aside = new File(TEST_FILE_PATH + ".corrupt", testFile.getName());
+        assertArrayEquals(corrupted, Files.readAllBytes(aside.toPath()));
+    }
 }
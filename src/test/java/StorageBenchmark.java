@@ -0,0 +1,71 @@
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import storage.Storage;
+import task.Deadline;
+import task.Event;
+import task.Task;
+import task.Todo;
+import util.ShrekException;
+
+/**
+ * Compares saving and loading a large task list in the text and binary formats.
+ * Run with {@code ./gradlew benchmark}; pass a task count as the first argument to change the size.
+ */
+public class StorageBenchmark {
+    private static final int DEFAULT_TASKS = 1_000_000;
+    private static final int ROUNDS = 3;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args optionally, the number of tasks to generate
+     * @throws ShrekException if a generated task is invalid
+     */
+    public static void main(String[] args) throws ShrekException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TASKS;
+        ArrayList<Task> tasks = generate(count);
+        System.out.println("Tasks: " + count);
+
+        for (Storage.Format format : Storage.Format.values()) {
+            File file = new File("build/benchmark/shrek-" + format.toString().toLowerCase() + ".dat");
+            file.getParentFile().mkdirs();
+            Storage storage = new Storage(file.getPath());
+            storage.setFormat(format);
+
+            long bestSave = Long.MAX_VALUE;
+            long bestLoad = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                storage.save(tasks);
+                bestSave = Math.min(bestSave, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                int loaded = new Storage(file.getPath()).load().size();
+                bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+                assert loaded == count : "Benchmark should load every task it saved";
+            }
+            System.out.printf("%-6s size %6.1f MB  save %6d ms  load %6d ms%n", format,
+                    file.length() / 1e6, bestSave / 1_000_000, bestLoad / 1_000_000);
+        }
+    }
+
+    private static ArrayList<Task> generate(int count) throws ShrekException {
+        ArrayList<Task> tasks = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime time = start.plusMinutes(i * 37L);
+            Task task = switch (i % 3) {
+            case 0 -> new Todo("buy onions for the swamp " + i);
+            case 1 -> new Deadline("submit ogre report " + i, time);
+            default -> new Event("donkey karaoke night " + i, time, time.plusHours(2));
+            };
+            if (i % 4 == 0) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}